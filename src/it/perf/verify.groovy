@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+// Generates reactors of perfModules modules in which every module has up to perfFanOut dependents and perfFiles
+// source files, and builds each of them with the extension: a full build, a build without changes, a build after
+// changing a leaf module and a build after changing the root module. The wall time and the timings reported by the
+// extension are appended to perfResults. The generated modules and their build check state are installed in
+// perfRepository, which reads the artifacts of the plugins from localRepository.
+
+def mvn = new File(mavenHome, 'bin/' + (System.getProperty('os.name').startsWith('Windows') ? 'mvn.cmd' : 'mvn'))
+def sizes = perfModules.split(',').collect { it.trim() as int }
+def fanOut = perfFanOut as int
+def files = perfFiles as int
+def results = new File(perfResults)
+
+if (!results.exists()) {
+    results.parentFile.mkdirs()
+    results.text = 'modules,fanOut,filesPerModule,scenario,wallMillis,checked,upToDate,checkMillis,saveMillis,' +
+            'cacheHits,cacheMisses,phaseMillis\n'
+}
+
+def moduleName = { int index -> String.format('m%04d', index) }
+
+def writeSource = { File module, int index, int file, String body ->
+    def source = new File(module, "src/main/java/perf/${moduleName(index)}/C${file}.java")
+    source.parentFile.mkdirs()
+    source.text = "package perf.${moduleName(index)};\n\npublic class C${file} {\n    ${body}\n}\n"
+}
+
+def generate = { File reactor, int size ->
+    reactor.deleteDir()
+    reactor.mkdirs()
+    def modules = (0..<size).collect { "    <module>${moduleName(it)}</module>" }.join('\n')
+    new File(reactor, 'pom.xml').text = """<project>
+  <modelVersion>4.0.0</modelVersion>
+  <groupId>nl.pepijno.perf${size}</groupId>
+  <artifactId>reactor</artifactId>
+  <version>1.0-SNAPSHOT</version>
+  <packaging>pom</packaging>
+  <properties>
+    <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>
+    <maven.compiler.release>17</maven.compiler.release>
+  </properties>
+  <modules>
+${modules}
+  </modules>
+</project>
+"""
+    for (int index = 0; index < size; index++) {
+        def module = new File(reactor, moduleName(index))
+        // Module 0 is the root, every other module depends on the module it fans out from
+        def dependency = index == 0 ? '' : """
+  <dependencies>
+    <dependency>
+      <groupId>nl.pepijno.perf${size}</groupId>
+      <artifactId>${moduleName(((index - 1) / fanOut) as int)}</artifactId>
+      <version>1.0-SNAPSHOT</version>
+    </dependency>
+  </dependencies>"""
+        module.mkdirs()
+        new File(module, 'pom.xml').text = """<project>
+  <modelVersion>4.0.0</modelVersion>
+  <parent>
+    <groupId>nl.pepijno.perf${size}</groupId>
+    <artifactId>reactor</artifactId>
+    <version>1.0-SNAPSHOT</version>
+  </parent>
+  <artifactId>${moduleName(index)}</artifactId>${dependency}
+</project>
+"""
+        for (int file = 0; file < files; file++) {
+            writeSource(module, index, file, 'public static final int VALUE = 0;')
+        }
+    }
+}
+
+def build = { File reactor, int size, String scenario ->
+    def timings = new File(reactor, 'target/build-check-timings.properties')
+    timings.parentFile.mkdirs()
+    timings.delete()
+    def command = [mvn.absolutePath, '-B', '-q', 'install',
+                   "-Dmaven.ext.class.path=${extensionJar}",
+                   "-Dmaven.repo.local=${perfRepository}",
+                   "-Dmaven.repo.local.tail=${localRepository}",
+                   '-Dbuild.check.enabled',
+                   "-Dbuild.check.timingsFile=${timings.absolutePath}"]
+    def log = new File(reactor, "target/${scenario}.log")
+    def start = System.nanoTime()
+    def process = new ProcessBuilder(command*.toString())
+            .directory(reactor)
+            .redirectErrorStream(true)
+            .redirectOutput(log)
+            .start()
+    def exitValue = process.waitFor()
+    def wallMillis = ((System.nanoTime() - start) / 1_000_000) as long
+    if (exitValue != 0) {
+        throw new IllegalStateException("Build ${scenario} of ${size} modules failed, see ${log}")
+    }
+    def extension = new Properties()
+    if (timings.exists()) {
+        timings.withInputStream { extension.load(it) }
+    }
+    def columns = ['checked', 'upToDate', 'checkMillis', 'saveMillis', 'cacheHits', 'cacheMisses']
+            .collect { extension.getProperty(it, '') }
+    def phases = extension.stringPropertyNames()
+            .findAll { it.startsWith('phaseMillis.') }
+            .sort()
+            .collect { "${it - 'phaseMillis.'}=${extension.getProperty(it)}" }
+            .join(';')
+    results << ([size, fanOut, files, scenario, wallMillis] + columns + [phases]).join(',') + '\n'
+    println "${size} modules, ${scenario}: ${wallMillis} ms"
+    return extension
+}
+
+for (size in sizes) {
+    def reactor = new File(basedir, "target/reactor-${size}")
+    generate(reactor, size)
+    build(reactor, size, 'full')
+    def noOp = build(reactor, size, 'no-op')
+    // The aggregator pom is installed and checked as well
+    def checked = noOp.getProperty('checked', '0') as int
+    def upToDate = noOp.getProperty('upToDate', '0') as int
+    if (checked != size + 1 || upToDate != checked) {
+        throw new IllegalStateException(
+                "Build without changes of ${size} modules found ${upToDate} of ${checked} checked projects up to date")
+    }
+    writeSource(new File(reactor, moduleName(size - 1)), size - 1, 0, 'public static final int VALUE = 1;')
+    build(reactor, size, 'leaf-change')
+    writeSource(new File(reactor, moduleName(0)), 0, 0, 'public static final int VALUE = 1;')
+    build(reactor, size, 'root-change')
+}
+
+return true
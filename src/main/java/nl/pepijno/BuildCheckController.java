@@ -18,44 +18,69 @@
  */
 package nl.pepijno;
 
-import org.apache.maven.SessionScoped;
-import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.MojoExecution;
-import org.apache.maven.project.MavenProject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import javax.inject.Inject;
 import javax.inject.Named;
-import java.io.BufferedReader;
+
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @SessionScoped
 @Named
 public class BuildCheckController {
 
     private static final Logger LOG = LoggerFactory.getLogger(BuildCheckController.class);
-    private static final String FIND_CMD = "/usr/bin/find";
 
     private final LifecyclePhasesHelper lifecyclePhasesHelper;
+    private final ProjectScanner projectScanner;
+    private final ModuleStateCache moduleStateCache;
+    private final BuildVariant buildVariant;
+    private final Config config;
+    private final ModuleStateCache.Statistics cacheStatistics = new ModuleStateCache.Statistics();
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder upToDate = new LongAdder();
+    private final LongAdder alwaysBuilt = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final LongAdder saveNanos = new LongAdder();
+    private final Map<MavenProject, Verdict> verdicts = new ConcurrentHashMap<>();
+    private final Map<MavenProject, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<MavenProject> hashedOnSave = ConcurrentHashMap.newKeySet();
+    private final Map<MavenProject, Long> unchangedContents = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> phaseNanos = new ConcurrentHashMap<>();
 
     @Inject
-    public BuildCheckController(final LifecyclePhasesHelper lifecyclePhasesHelper) {
+    public BuildCheckController(
+            final LifecyclePhasesHelper lifecyclePhasesHelper,
+            final ProjectScanner projectScanner,
+            final ModuleStateCache moduleStateCache,
+            final BuildVariant buildVariant,
+            final Config config) {
         this.lifecyclePhasesHelper = lifecyclePhasesHelper;
+        this.projectScanner = projectScanner;
+        this.moduleStateCache = moduleStateCache;
+        this.buildVariant = buildVariant;
+        this.config = config;
+        moduleStateCache.setMaxBytes(config.getStateCacheBytes());
     }
 
     boolean shouldRebuild(final MavenSession session, final List<MojoExecution> mojoExecutions) {
@@ -66,71 +91,549 @@ public class BuildCheckController {
         }
 
         final var project = session.getCurrentProject();
-        var cacheFile = Utils.getCacheFile(session);
+        final var saved = isInstalled(mojoExecutions);
+        var verdict = verdicts.remove(project);
+        if (verdict == null) {
+            verdict = isAdaptive() ? checkAdaptively(session, project) : check(session, project, CheckPolicy.CHECK);
+        }
+        if (!verdict.isRebuild()) {
+            snapshots.remove(project);
+        } else if (saved && !snapshots.containsKey(project)) {
+            takeSnapshot(session, verdict);
+        }
+        return verdict.isRebuild();
+    }
+
+    static boolean isInstalled(final List<MojoExecution> mojoExecutions) {
+        return mojoExecutions.stream().anyMatch(mojoExecution -> "install".equals(mojoExecution.getLifecyclePhase()));
+    }
+
+    /**
+     * Remembers the verdicts of a check of the whole reactor made before the build, so projects are not checked again
+     * when they are built.
+     */
+    void putVerdicts(final Map<MavenProject, Verdict> verdicts) {
+        this.verdicts.putAll(verdicts);
+    }
+
+    /**
+     * Checks a project without the adaptive policy and without recording statistics, as done for a check of the whole
+     * reactor before the build.
+     */
+    Verdict check(final MavenSession session, final MavenProject project) {
+        return check(session, project, CheckPolicy.CHECK);
+    }
+
+    private boolean isAdaptive() {
+        return config.isAdaptivePolicy() && !config.isListOnly();
+    }
+
+    /**
+     * Checks a project as decided by its statistics, and records the check in them. The statistics are read and
+     * written once per check. A build skipped because newer files had unchanged contents is recorded as a spurious
+     * change, so checking by hash keeps paying off as long as it skips builds.
+     */
+    private Verdict checkAdaptively(final MavenSession session, final MavenProject project) {
+        final var stats = loadStats(session, project);
+        final var policy = decidePolicy(session, project, stats);
+        final var start = System.nanoTime();
+        final var verdict = check(session, project, policy);
+        final var nanos = System.nanoTime() - start;
+        var updated = policy == CheckPolicy.ALWAYS_BUILD
+                ? stats.withUncheckedBuild()
+                : stats.withCheck(nanos, !verdict.isRebuild());
+        final var hashNanos = unchangedContents.remove(project);
+        if (hashNanos != null) {
+            updated = updated.withHash(hashNanos, true);
+        }
+        writeStats(session, project, updated);
+        if (verdict.isRebuild() && CheckPolicy.isHashedOnSave(policy, stats)) {
+            hashedOnSave.add(project);
+        }
+        return verdict;
+    }
+
+    /**
+     * Checks a project. The scan stops as soon as a change is found and does not keep the paths of the files, so a
+     * snapshot is only taken of the projects which are rebuilt.
+     */
+    private Verdict check(final MavenSession session, final MavenProject project, final CheckPolicy policy) {
+        final var event = new BuildCheckModuleEvent();
+        event.begin();
+        final Verdict verdict;
+        if (policy == CheckPolicy.ALWAYS_BUILD) {
+            event.reason = "adaptive policy";
+            verdict = Verdict.ALWAYS_BUILD;
+            alwaysBuilt.increment();
+        } else {
+            final var start = System.nanoTime();
+            verdict = doCheck(session, project, event, policy == CheckPolicy.HASH);
+            checkNanos.add(System.nanoTime() - start);
+            checked.increment();
+            if (!verdict.isRebuild()) {
+                upToDate.increment();
+            }
+        }
+        if (event.shouldCommit()) {
+            event.module = getCoordinates(project);
+            event.variant = buildVariant.getId();
+            event.verdict = verdict.name();
+            event.commit();
+        }
+        return verdict;
+    }
+
+    String getSummary() {
+        return String.format(
+                "%d of %d checked projects up to date, module state cache hit rate %d%% (%d hits, %d misses)",
+                upToDate.sum(),
+                checked.sum(),
+                cacheStatistics.getHitRate(),
+                cacheStatistics.getHits(),
+                cacheStatistics.getMisses());
+    }
+
+    /**
+     * Records the time a mojo execution bound to a lifecycle phase took to build a project.
+     */
+    void recordPhase(final String phase, final long nanos) {
+        phaseNanos.computeIfAbsent(phase, key -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * Returns the counts and the time in milliseconds spent checking and saving projects, in the order they are
+     * written to the timings file, followed by the time spent in every lifecycle phase summed over all projects.
+     */
+    Map<String, Long> getTimings() {
+        final var timings = new LinkedHashMap<String, Long>();
+        timings.put("checked", checked.sum());
+        timings.put("upToDate", upToDate.sum());
+        timings.put("alwaysBuilt", alwaysBuilt.sum());
+        timings.put("checkMillis", TimeUnit.NANOSECONDS.toMillis(checkNanos.sum()));
+        timings.put("saveMillis", TimeUnit.NANOSECONDS.toMillis(saveNanos.sum()));
+        timings.put("cacheHits", cacheStatistics.getHits());
+        timings.put("cacheMisses", cacheStatistics.getMisses());
+        new TreeMap<>(phaseNanos)
+                .forEach((phase, nanos) ->
+                        timings.put("phaseMillis." + phase, TimeUnit.NANOSECONDS.toMillis(nanos.sum())));
+        return timings;
+    }
+
+    /**
+     * Decides how to check a project from its statistics and logs the decision.
+     */
+    private CheckPolicy decidePolicy(final MavenSession session, final MavenProject project, final ModuleStats stats) {
+        final var hasDownstream = !session.getProjectDependencyGraph()
+                .getDownstreamProjects(project, false)
+                .isEmpty();
+        final var policy = CheckPolicy.decide(stats, hasDownstream);
+        if (policy != CheckPolicy.CHECK || LOG.isDebugEnabled()) {
+            final var message = String.format(
+                    "Build check policy for project %s: %s (check %d ms, build %d ms, hit rate %d%%, hash %d ms, "
+                            + "unchanged contents %d%%)",
+                    project.getArtifactId(),
+                    policy,
+                    TimeUnit.NANOSECONDS.toMillis(stats.getCheckNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getBuildNanos()),
+                    Math.round(stats.getHitRate() * 100),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getHashNanos()),
+                    Math.round(stats.getSpuriousRate() * 100));
+            if (policy == CheckPolicy.CHECK) {
+                LOG.debug(message);
+            } else {
+                LOG.info(message);
+            }
+        }
+        return policy;
+    }
+
+    private Verdict doCheck(
+            final MavenSession session,
+            final MavenProject project,
+            final BuildCheckModuleEvent event,
+            final boolean hash) {
+        var cacheFile = Utils.getCacheFile(session, project);
         if (!Files.exists(cacheFile)) {
             LOG.debug("Cache file {} not found", cacheFile);
-            return true;
+            event.reason = "no saved state";
+            return Verdict.NO_CACHE;
         }
 
-        try (var fis = new FileInputStream(cacheFile.toFile());
-                var oos = new ObjectInputStream(fis)) {
-            boolean hasResults = findCommandHasResults(findNewerInSourceCommandString(project, cacheFile));
-            if (hasResults) {
-                LOG.debug("Found newer file in src of project {}", project);
-                return true;
+        try {
+            final var variant = loadState(cacheFile, event).getVariant(buildVariant.getId());
+            if (variant == null) {
+                LOG.debug("No saved state of project {} for variant {}", project, buildVariant.getKey());
+                event.reason = "no saved variant";
+                return Verdict.NO_CACHE;
             }
-            hasResults = findCommandHasResults(findNewerInRootCommandString(project, cacheFile));
-            if (hasResults) {
-                LOG.debug("Found newer file in root of project {}", project);
-                return true;
+            var scan = scan(project, variant, ScanPurpose.CHECK);
+            event.filesVisited = scan.files().size();
+            LOG.debug(
+                    "Listed {} and reused {} directories of project {}",
+                    scan.directoriesListed(),
+                    scan.directoriesReused(),
+                    project);
+            final var newer = scan.newestSource() > variant.timestamp() || scan.newestRoot() > variant.timestamp();
+            var contentsUnchanged = false;
+            if (newer && hash && variant.contentHash().length > 0) {
+                final var start = System.nanoTime();
+                final var hashed = scan(project, variant, ScanPurpose.HASH);
+                if (hasSameContents(project, variant, hashed)) {
+                    unchangedContents.put(project, System.nanoTime() - start);
+                    scan = hashed;
+                    contentsUnchanged = true;
+                }
             }
-            List<File> depFiles = getDependenciesCacheFiles(session, project);
-            hasResults = findCommandHasResults(findNewerInDepFiles(depFiles, cacheFile));
-            if (hasResults) {
+            if (contentsUnchanged) {
+                LOG.debug("Found newer files in project {}, but their contents did not change", project);
+            } else if (scan.newestSource() > variant.timestamp()) {
                 LOG.debug("Found newer file in src of project {}", project);
-                return true;
+                event.reason = "newer file in src";
+                return Verdict.NEWER_SOURCE;
+            } else if (scan.newestRoot() > variant.timestamp()) {
+                LOG.debug("Found newer file in root of project {}", project);
+                event.reason = "newer file in root";
+                return Verdict.NEWER_ROOT;
+            }
+            if (hasNewerUpstreamVariant(session, project, variant.timestamp(), event)) {
+                LOG.debug("Found newer state of upstream project of project {}", project);
+                event.reason = "newer upstream state";
+                return Verdict.NEWER_UPSTREAM;
             }
-            var savedFiles = new HashSet<String>();
-            savedFiles = (HashSet<String>) oos.readObject();
-            var files = findFiles(findInSourceCommandString(project));
-            files.addAll(findFiles(findInRootCommandString(project)));
-            if (!files.equals(savedFiles)) {
-                LOG.debug("Current files in project {} do not match saved files", project);
-                return true;
+            if (scan.stopped()) {
+                LOG.debug("Found unknown file in project {}", project);
+                event.reason = "unknown file";
+                return Verdict.FILES_CHANGED;
+            }
+            if (!scan.files().sameAs(variant.files())) {
+                LOG.debug(
+                        "Current {} files in project {} do not match {} saved files",
+                        scan.files().size(),
+                        project,
+                        variant.files().size());
+                event.reason = "different files";
+                return Verdict.FILES_CHANGED;
             }
 
-            return false;
-        } catch (IOException | InterruptedException | ClassNotFoundException e) {
+            event.reason = "unchanged";
+            return Verdict.UP_TO_DATE;
+        } catch (ModuleState.UnsupportedFormatException e) {
+            LOG.debug(e.getMessage());
+            event.reason = "unsupported state format";
+            return Verdict.NO_CACHE;
+        } catch (IOException e) {
             LOG.warn("Could not read project files for project {}", project);
             LOG.debug(e.getMessage());
-            return true;
+            event.reason = e.getMessage();
+            return Verdict.ERROR;
+        }
+    }
+
+    private static boolean hasSameContents(
+            final MavenProject project, final ModuleState.Variant variant, final ProjectScanner.Scan scan)
+            throws IOException {
+        return scan.files().sameAs(variant.files())
+                && Arrays.equals(
+                        hash(project, scan.files(), Long.MAX_VALUE, ScanPurpose.CHECK)
+                                .hash(),
+                        variant.contentHash());
+    }
+
+    /**
+     * Hashes the contents of the files of a project, and emits a scan event with the number of bytes read.
+     */
+    private static ProjectScanner.ContentHash hash(
+            final MavenProject project, final PathSet files, final long notModifiedAfter, final ScanPurpose purpose)
+            throws IOException {
+        final var event = new BuildCheckScanEvent();
+        event.begin();
+        final var contentHash = ProjectScanner.hashContents(project.getBasedir().toPath(), files, notModifiedAfter);
+        if (event.shouldCommit()) {
+            event.module = getCoordinates(project);
+            event.scanner = "content hash";
+            event.purpose = purpose.getName();
+            event.filesVisited = files.size();
+            event.contentBytesHashed = contentHash.bytes();
+            event.commit();
         }
+        return contentHash;
     }
 
-    private List<File> getDependenciesCacheFiles(MavenSession session, MavenProject project) {
-        List<File> result = new ArrayList<>();
+    private boolean hasNewerUpstreamVariant(
+            final MavenSession session,
+            final MavenProject project,
+            final long timestamp,
+            final BuildCheckModuleEvent event)
+            throws IOException {
         for (MavenProject upstreamProject : session.getProjectDependencyGraph().getUpstreamProjects(project, false)) {
             Path upstreamCacheFile = Utils.getCacheFile(session, upstreamProject);
-            result.add(upstreamCacheFile.toFile());
+            if (!Files.exists(upstreamCacheFile)) {
+                continue;
+            }
+            try {
+                final var upstreamVariant = loadState(upstreamCacheFile, event).getVariant(buildVariant.getId());
+                if (upstreamVariant != null && upstreamVariant.timestamp() > timestamp) {
+                    return true;
+                }
+            } catch (ModuleState.UnsupportedFormatException e) {
+                LOG.debug(e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans the files of a project, reusing the unchanged directories of the given variant, and emits a scan event.
+     */
+    private ProjectScanner.Scan scan(
+            final MavenProject project, final ModuleState.Variant variant, final ScanPurpose purpose)
+            throws IOException {
+        final var event = new BuildCheckScanEvent();
+        event.begin();
+        final var basedir = project.getBasedir().toPath();
+        final var scan = purpose == ScanPurpose.CHECK
+                ? projectScanner.check(basedir, variant)
+                : projectScanner.scan(basedir, true, variant);
+        if (event.shouldCommit()) {
+            event.module = getCoordinates(project);
+            event.scanner = projectScanner.getType();
+            event.purpose = purpose.getName();
+            event.filesVisited = scan.files().size();
+            event.directoriesListed = scan.directoriesListed();
+            event.directoriesReused = scan.directoriesReused();
+            event.pathBytes = scan.pathBytes();
+            event.stopped = scan.stopped();
+            event.commit();
+        }
+        return scan;
+    }
+
+    private static String getCoordinates(final MavenProject project) {
+        return project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion();
+    }
+
+    /**
+     * Returns whether the outputs in the build directory of the current project belong to the variant of this build.
+     */
+    boolean isCurrentVariant(final MavenSession session) {
+        try {
+            return loadState(Utils.getCacheFile(session)).isCurrent(buildVariant.getId());
+        } catch (IOException e) {
+            LOG.debug(e.getMessage());
+            return false;
+        }
+    }
+
+    void markCurrentVariant(final MavenSession session) {
+        final var project = session.getCurrentProject();
+        final var cacheFile = Utils.getCacheFile(session);
+        try {
+            final var state = loadState(cacheFile).withCurrent(buildVariant.getId(), System.currentTimeMillis());
+            state.write(cacheFile);
+            moduleStateCache.put(cacheFile, state);
+        } catch (IOException e) {
+            LOG.warn("Could not update project files for project {}", project);
+            LOG.debug(e.getMessage());
+        }
+    }
+
+    /**
+     * Takes a snapshot of the files of the current project before it is built, to be saved after it was installed.
+     * Files changed during the build are then newer than the saved timestamp, so they are not missed by the next
+     * build.
+     */
+    void takeSnapshot(final MavenSession session) {
+        takeSnapshot(session, null);
+    }
+
+    private void takeSnapshot(final MavenSession session, final Verdict verdict) {
+        final var project = session.getCurrentProject();
+        try {
+            final var start = System.currentTimeMillis();
+            final var scan = scan(project, getSavedVariant(session, project), ScanPurpose.SNAPSHOT);
+            snapshots.put(project, new Snapshot(start, scan, verdict));
+        } catch (IOException e) {
+            LOG.debug(e.getMessage());
         }
-        return result;
     }
 
     void save(final MavenSession session) {
+        final var start = System.nanoTime();
+        try {
+            doSave(session);
+        } finally {
+            saveNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void doSave(final MavenSession session) {
         final var project = session.getCurrentProject();
         var projectFilesFilename = Utils.getCacheFile(session);
-        try (var fos = new FileOutputStream(projectFilesFilename.toFile());
-                var oos = new ObjectOutputStream(fos)) {
-            var files = findFiles(findInSourceCommandString(project));
-            files.addAll(findFiles(findInRootCommandString(project)));
+        try {
+            var previous = ModuleState.EMPTY;
+            if (Files.exists(projectFilesFilename)) {
+                try {
+                    previous = loadState(projectFilesFilename);
+                } catch (IOException e) {
+                    LOG.debug(e.getMessage());
+                }
+            }
+            final var snapshot = snapshots.remove(project);
+            final long now;
+            final ProjectScanner.Scan scan;
+            if (snapshot != null) {
+                now = snapshot.time();
+                scan = revalidate(project, snapshot);
+            } else {
+                now = System.currentTimeMillis();
+                scan = scan(project, previous.getVariant(buildVariant.getId()), ScanPurpose.SAVE);
+            }
+            final var contentHash = hashedOnSave.remove(project)
+                    ? hashContents(session, project, scan, previous.getVariant(buildVariant.getId()), snapshot, now)
+                    : new byte[0];
             LOG.info("Writing project files for project {}", project);
-            oos.writeObject(files);
-        } catch (IOException | InterruptedException e) {
+            var variant = new ModuleState.Variant(
+                    buildVariant.getId(),
+                    buildVariant.getKey(),
+                    TimeUnit.MILLISECONDS.toNanos(now),
+                    now,
+                    scan.files(),
+                    scan.directories(),
+                    contentHash);
+            var state = previous.withVariant(variant, config.getMaxVariants());
+            state.write(projectFilesFilename);
+            moduleStateCache.put(projectFilesFilename, state);
+            for (var evicted : previous.getVariants()) {
+                if (state.getVariant(evicted.id()) == null) {
+                    removeVariantFiles(session, project, evicted.id());
+                }
+            }
+        } catch (IOException e) {
             LOG.warn("Could not save project files for project {}", project);
             LOG.debug(e.getMessage());
         }
     }
 
+    /**
+     * Hashes the contents of the files to save for the adaptive policy, and records how long that took and, if the
+     * project was rebuilt because of newer files, whether the contents actually changed. The files are hashed after
+     * the build, so if one of them was modified after the saved time in milliseconds since the epoch, the hash would
+     * contain a change the next build has to see: then no hash is saved.
+     */
+    private byte[] hashContents(
+            final MavenSession session,
+            final MavenProject project,
+            final ProjectScanner.Scan scan,
+            final ModuleState.Variant previous,
+            final Snapshot snapshot,
+            final long time)
+            throws IOException {
+        final var start = System.nanoTime();
+        final var contentHash = hash(project, scan.files(), TimeUnit.MILLISECONDS.toNanos(time), ScanPurpose.SAVE)
+                .hash();
+        final var nanos = System.nanoTime() - start;
+        if (contentHash.length == 0) {
+            LOG.debug("Files of project {} were modified during the build, not saving their hash", project);
+        }
+        final var newer = snapshot != null
+                && (snapshot.verdict() == Verdict.NEWER_SOURCE || snapshot.verdict() == Verdict.NEWER_ROOT);
+        final var comparable = newer && previous != null && previous.contentHash().length > 0 && contentHash.length > 0;
+        final Boolean unchanged = comparable ? Arrays.equals(previous.contentHash(), contentHash) : null;
+        updateStats(session, project, stats -> stats.withHash(nanos, unchanged));
+        return contentHash;
+    }
+
+    /**
+     * Returns the files of a snapshot if none of its directories changed since. Otherwise the project is scanned
+     * again, reusing the directories which did not change.
+     */
+    private ProjectScanner.Scan revalidate(final MavenProject project, final Snapshot snapshot) throws IOException {
+        final var basedir = project.getBasedir().toPath();
+        if (projectScanner.isUnchanged(basedir, snapshot.scan().directories())) {
+            return snapshot.scan();
+        }
+        LOG.debug("Directories of project {} changed during the build, scanning again", project);
+        final var variant = new ModuleState.Variant(
+                buildVariant.getId(),
+                buildVariant.getKey(),
+                TimeUnit.MILLISECONDS.toNanos(snapshot.time()),
+                snapshot.time(),
+                snapshot.scan().files(),
+                snapshot.scan().directories());
+        return scan(project, variant, ScanPurpose.SAVE);
+    }
+
+    private ModuleState.Variant getSavedVariant(final MavenSession session, final MavenProject project) {
+        final var cacheFile = Utils.getCacheFile(session, project);
+        if (!Files.exists(cacheFile)) {
+            return null;
+        }
+        try {
+            return loadState(cacheFile).getVariant(buildVariant.getId());
+        } catch (IOException e) {
+            LOG.debug(e.getMessage());
+            return null;
+        }
+    }
+
+    ModuleStats loadStats(final MavenSession session, final MavenProject project) {
+        var statsFile = Utils.getStatsFile(session, project);
+        if (!Files.exists(statsFile)) {
+            return ModuleStats.EMPTY;
+        }
+        try {
+            return ModuleStats.read(statsFile);
+        } catch (IOException e) {
+            LOG.debug(e.getMessage());
+            return ModuleStats.EMPTY;
+        }
+    }
+
+    void recordBuild(final MavenSession session, final long nanos) {
+        updateStats(session, session.getCurrentProject(), stats -> stats.withBuild(nanos));
+    }
+
+    private void updateStats(
+            final MavenSession session, final MavenProject project, final UnaryOperator<ModuleStats> update) {
+        writeStats(session, project, update.apply(loadStats(session, project)));
+    }
+
+    private void writeStats(final MavenSession session, final MavenProject project, final ModuleStats stats) {
+        try {
+            stats.write(Utils.getStatsFile(session, project));
+        } catch (IOException e) {
+            LOG.warn("Could not save statistics of project {}", project);
+            LOG.debug(e.getMessage());
+        }
+    }
+
+    private ModuleState loadState(final Path cacheFile) throws IOException {
+        return moduleStateCache.get(cacheFile, ModuleState::read, cacheStatistics);
+    }
+
+    private ModuleState loadState(final Path cacheFile, final BuildCheckModuleEvent event) throws IOException {
+        final var start = System.nanoTime();
+        try {
+            return loadState(cacheFile);
+        } finally {
+            event.cacheLoadTime += System.nanoTime() - start;
+        }
+    }
+
+    private void removeVariantFiles(final MavenSession session, final MavenProject project, final String variantId)
+            throws IOException {
+        var prefix = Utils.getVariantFilenamePrefix(project, variantId);
+        try (var files = Files.list(Utils.getLocation(session, project))) {
+            for (var file : files.toList()) {
+                var name = file.getFileName().toString();
+                if (name.startsWith(prefix) && Utils.isCacheFile(name)) {
+                    LOG.debug("Removing file {} of evicted variant", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
     void removeCacheFile(final MavenSession session, final MavenProject project) {
         try {
             var location = Utils.getLocation(session, project);
@@ -139,7 +642,7 @@ public class BuildCheckController {
             if (Files.isDirectory(location)) {
                 File[] files = Objects.requireNonNullElse(location.toFile().listFiles(), new File[0]);
                 for (File file : files) {
-                    if (file.getName().startsWith(prefix)) {
+                    if (file.getName().startsWith(prefix) && Utils.isCacheFile(file.getName())) {
                         LOG.info("Removing cache file {}", file);
                         Files.deleteIfExists(file.toPath());
                     }
@@ -150,44 +653,20 @@ public class BuildCheckController {
         }
     }
 
-    private boolean findCommandHasResults(final String findCommand) throws IOException, InterruptedException {
-        return !findFiles(findCommand).isEmpty();
-    }
+    /**
+     * Files of a project scanned before it was built, with the time in milliseconds since the epoch at which the
+     * scan started and the verdict of the check, if any.
+     */
+    private record Snapshot(long time, ProjectScanner.Scan scan, Verdict verdict) {}
 
-    private Set<String> findFiles(final String findCommand) throws IOException, InterruptedException {
-        var mdfind = new ProcessBuilder("/bin/bash", "-c", findCommand);
+    private enum ScanPurpose {
+        CHECK,
+        HASH,
+        SNAPSHOT,
+        SAVE;
 
-        var process = mdfind.start();
-
-        var files = new HashSet<String>();
-        var reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            files.add(line);
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
         }
-        process.waitFor();
-        return files;
-    }
-
-    private String findInSourceCommandString(final MavenProject project) {
-        return FIND_CMD + " " + project.getBasedir().toPath().resolve("src") + " -type f";
-    }
-
-    private String findNewerInSourceCommandString(final MavenProject project, final Path referenceFile) {
-        return findInSourceCommandString(project) + " -newer " + referenceFile.toString();
-    }
-
-    private String findInRootCommandString(final MavenProject project) {
-        return FIND_CMD + " " + project.getBasedir() + " -maxdepth 1 -type f -not -name \".*\"";
-    }
-
-    private String findNewerInRootCommandString(final MavenProject project, final Path referenceFile) {
-        return findInRootCommandString(project) + " -newer " + referenceFile.toString();
-    }
-
-    private String findNewerInDepFiles(final List<File> depFiles, final Path referenceFile) {
-        String joined =
-                depFiles.stream().map(File::getAbsoluteFile).map(File::toString).collect(Collectors.joining(" "));
-        return FIND_CMD + " " + joined + " -newer " + referenceFile.toString();
     }
 }
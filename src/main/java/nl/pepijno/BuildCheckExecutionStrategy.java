@@ -18,6 +18,13 @@
  */
 package nl.pepijno;
 
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.util.List;
+
 import org.apache.maven.SessionScoped;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.lifecycle.LifecycleExecutionException;
@@ -27,11 +34,6 @@ import org.apache.maven.plugin.MojosExecutionStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.Priority;
-import javax.inject.Inject;
-import javax.inject.Named;
-import java.util.List;
-
 @SessionScoped
 @Named
 @Priority(10)
@@ -41,15 +43,21 @@ public class BuildCheckExecutionStrategy implements MojosExecutionStrategy {
 
     private final LifecyclePhasesHelper lifecyclePhasesHelper;
     private final BuildCheckController buildCheckController;
+    private final TestResultCache testResultCache;
+    private final OutputCache outputCache;
     private final Config config;
 
     @Inject
     public BuildCheckExecutionStrategy(
             final LifecyclePhasesHelper lifecyclePhasesHelper,
             final BuildCheckController buildCheckController,
+            final TestResultCache testResultCache,
+            final OutputCache outputCache,
             final Config config) {
         this.lifecyclePhasesHelper = lifecyclePhasesHelper;
         this.buildCheckController = buildCheckController;
+        this.testResultCache = testResultCache;
+        this.outputCache = outputCache;
         this.config = config;
     }
 
@@ -59,36 +67,147 @@ public class BuildCheckExecutionStrategy implements MojosExecutionStrategy {
             final MavenSession session,
             final MojoExecutionRunner mojoExecutionRunner)
             throws LifecycleExecutionException {
+        if (config.isListOnly()) {
+            LOG.debug("Listing projects to rebuild only, skipping project {}", session.getCurrentProject());
+            return;
+        }
+
         final var source = getSource(mojoExecutions);
 
         var shouldRebuild = true;
         if (source == MojoExecution.Source.LIFECYCLE) {
             var cleanPhase = lifecyclePhasesHelper.getCleanSegment(mojoExecutions);
+            var cleanRestore = config.isBuildCheckEnabled() && config.isCleanRestoreEnabled();
             for (var mojoExecution : cleanPhase) {
                 mojoExecutionRunner.run(mojoExecution);
-                removeCacheFile(session);
+                if (!cleanRestore) {
+                    removeCacheFile(session);
+                }
             }
             if (!config.isBuildCheckEnabled()) {
                 LOG.info("Build check is disabled");
-            } else if (!cleanPhase.isEmpty()) {
+            } else if (!cleanPhase.isEmpty() && !cleanRestore) {
                 LOG.info("Clean present, build check is disabled");
+                if (BuildCheckController.isInstalled(mojoExecutions)) {
+                    buildCheckController.takeSnapshot(session);
+                }
             } else {
                 shouldRebuild = buildCheckController.shouldRebuild(session, mojoExecutions);
+                if (!shouldRebuild) {
+                    shouldRebuild =
+                            !restoreOutputs(mojoExecutions, session, mojoExecutionRunner, !cleanPhase.isEmpty());
+                    if (shouldRebuild && BuildCheckController.isInstalled(mojoExecutions)) {
+                        buildCheckController.takeSnapshot(session);
+                    }
+                }
             }
         }
 
         if (shouldRebuild) {
+            final var start = System.nanoTime();
+            final var lastInstall = getLastInstall(mojoExecutions);
+            var installed = false;
             for (var mojoExecution : mojoExecutions) {
                 if (source == MojoExecution.Source.CLI
                         || mojoExecution.getLifecyclePhase() == null
                         || lifecyclePhasesHelper.isLaterPhaseThanClean(mojoExecution.getLifecyclePhase())) {
-                    mojoExecutionRunner.run(mojoExecution);
-                    if (config.isBuildCheckEnabled() && "install".equals(mojoExecution.getLifecyclePhase())) {
+                    final var mojoStart = System.nanoTime();
+                    run(mojoExecution, session, mojoExecutionRunner);
+                    if (mojoExecution.getLifecyclePhase() != null) {
+                        buildCheckController.recordPhase(
+                                mojoExecution.getLifecyclePhase(), System.nanoTime() - mojoStart);
+                    }
+                    if (config.isBuildCheckEnabled() && mojoExecution == lastInstall) {
                         buildCheckController.save(session);
+                        if (config.isCleanRestoreEnabled() || config.getMaxVariants() > 1) {
+                            outputCache.save(session, session.getCurrentProject());
+                        }
+                        installed = true;
                     }
                 }
             }
+            if (installed) {
+                buildCheckController.recordBuild(session, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Restores the outputs of an up-to-date project if they were removed by clean or belong to another variant, and
+     * installs them again in the latter case. Returns false if the project has to be rebuilt instead.
+     */
+    private boolean restoreOutputs(
+            final List<MojoExecution> mojoExecutions,
+            final MavenSession session,
+            final MojoExecutionRunner mojoExecutionRunner,
+            final boolean cleaned)
+            throws LifecycleExecutionException {
+        final var project = session.getCurrentProject();
+        final var currentVariant = buildCheckController.isCurrentVariant(session);
+        if (!cleaned && currentVariant) {
+            return true;
+        }
+        if (!outputCache.restore(session, project)) {
+            LOG.info("Outputs of project {} could not be restored, rebuilding", project);
+            return false;
+        }
+        if (!currentVariant) {
+            LOG.info("Installing restored outputs of project {}", project);
+            for (var mojoExecution : mojoExecutions) {
+                if ("install".equals(mojoExecution.getLifecyclePhase())) {
+                    mojoExecutionRunner.run(mojoExecution);
+                }
+            }
+            buildCheckController.markCurrentVariant(session);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the last mojo execution bound to install, after which the project is saved once, or null if there is
+     * none.
+     */
+    private static MojoExecution getLastInstall(final List<MojoExecution> mojoExecutions) {
+        MojoExecution lastInstall = null;
+        for (var mojoExecution : mojoExecutions) {
+            if ("install".equals(mojoExecution.getLifecyclePhase())) {
+                lastInstall = mojoExecution;
+            }
+        }
+        return lastInstall;
+    }
+
+    private void run(
+            final MojoExecution mojoExecution,
+            final MavenSession session,
+            final MojoExecutionRunner mojoExecutionRunner)
+            throws LifecycleExecutionException {
+        if (!config.isBuildCheckEnabled()
+                || !config.isTestCacheEnabled()
+                || !testResultCache.isTestExecution(mojoExecution)) {
+            mojoExecutionRunner.run(mojoExecution);
+            return;
+        }
+
+        final var project = session.getCurrentProject();
+        final String fingerprint;
+        try {
+            fingerprint = testResultCache.fingerprint(session, project, mojoExecution);
+        } catch (IOException e) {
+            LOG.warn("Could not fingerprint test inputs of project {}", project);
+            LOG.debug(e.getMessage());
+            mojoExecutionRunner.run(mojoExecution);
+            return;
+        }
+        if (testResultCache.restore(session, project, mojoExecution, fingerprint)) {
+            LOG.info(
+                    "Test inputs of project {} did not change, restored reports of {} instead of running it",
+                    project,
+                    mojoExecution.getExecutionId());
+            return;
         }
+        mojoExecutionRunner.run(mojoExecution);
+        testResultCache.save(session, project, mojoExecution, fingerprint);
     }
 
     private void removeCacheFile(final MavenSession session) {
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@SessionScoped
+@Named
+public class BuildCheckLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuildCheckLifecycleParticipant.class);
+
+    private final ReactorBuildCheck reactorBuildCheck;
+    private final BuildCheckController buildCheckController;
+    private final ProjectScanner projectScanner;
+    private final StateCollector stateCollector;
+    private final Config config;
+
+    @Inject
+    public BuildCheckLifecycleParticipant(
+            final ReactorBuildCheck reactorBuildCheck,
+            final BuildCheckController buildCheckController,
+            final ProjectScanner projectScanner,
+            final StateCollector stateCollector,
+            final Config config) {
+        this.reactorBuildCheck = reactorBuildCheck;
+        this.buildCheckController = buildCheckController;
+        this.projectScanner = projectScanner;
+        this.stateCollector = stateCollector;
+        this.config = config;
+    }
+
+    @Override
+    public void afterProjectsRead(final MavenSession session) throws MavenExecutionException {
+        if (!config.isListOnly()) {
+            return;
+        }
+
+        final var start = System.nanoTime();
+        try {
+            final var verdicts = reactorBuildCheck.check(session);
+            final var list = RebuildList.format(config.getListFormat(), verdicts);
+            LOG.info(
+                    "Checked {} projects in {} ms, {} need to be rebuilt",
+                    verdicts.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    ReactorBuildCheck.getRebuilt(verdicts).size());
+            final var listFile = config.getListFile();
+            if (listFile == null) {
+                System.out.println(list);
+            } else {
+                Files.writeString(Path.of(listFile), list + System.lineSeparator(), StandardCharsets.UTF_8);
+                LOG.info("Wrote projects to rebuild to {}", listFile);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            throw new MavenExecutionException("Could not list projects to rebuild: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenExecutionException("Interrupted while listing projects to rebuild", e);
+        }
+    }
+
+    @Override
+    public void afterSessionEnd(final MavenSession session) {
+        if (config.isBuildCheckEnabled() || config.isListOnly()) {
+            LOG.info("Build check summary: {}", buildCheckController.getSummary());
+        }
+        final var timingsFile = config.getTimingsFile();
+        if (timingsFile != null) {
+            writeTimings(Path.of(timingsFile));
+        }
+        projectScanner.shutdown();
+        if (config.isBuildCheckEnabled() && config.isGcEnabled()) {
+            stateCollector.collect(session);
+        }
+    }
+
+    private void writeTimings(final Path timingsFile) {
+        final var lines = new StringBuilder();
+        buildCheckController
+                .getTimings()
+                .forEach((key, value) ->
+                        lines.append(key).append('=').append(value).append(System.lineSeparator()));
+        try {
+            Files.writeString(timingsFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("Could not write build check timings to {}", timingsFile);
+            LOG.debug(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for the check of a module. The fields are only filled in when the event is committed.
+ */
+@Name("nl.pepijno.BuildCheckModule")
+@Label("Build Check Module")
+@Description("Check whether a module has to be rebuilt")
+@Category({"Maven", "Build Check"})
+final class BuildCheckModuleEvent extends jdk.jfr.Event {
+
+    @Label("Module")
+    String module;
+
+    @Label("Variant")
+    String variant;
+
+    @Label("Verdict")
+    String verdict;
+
+    @Label("Reason")
+    String reason;
+
+    @Label("Files Visited")
+    int filesVisited;
+
+    @Label("Cache Load Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cacheLoadTime;
+}
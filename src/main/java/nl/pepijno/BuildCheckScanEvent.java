@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a scan of the files of a module, either to check it or to save its state. Hashing the
+ * contents of the files for the adaptive policy is a scan of its own.
+ */
+@Name("nl.pepijno.BuildCheckScan")
+@Label("Build Check Scan")
+@Description("Scan of the files of a module")
+@Category({"Maven", "Build Check"})
+final class BuildCheckScanEvent extends jdk.jfr.Event {
+
+    @Label("Module")
+    String module;
+
+    @Label("Scanner")
+    @Description("Sequential or parallel walk, or content hash")
+    String scanner;
+
+    @Label("Purpose")
+    @Description("Check, hash, snapshot or save")
+    String purpose;
+
+    @Label("Files Visited")
+    int filesVisited;
+
+    @Label("Directories Listed")
+    int directoriesListed;
+
+    @Label("Directories Reused")
+    int directoriesReused;
+
+    @Label("Path Bytes")
+    @Description("Bytes of the relative paths added to the set hash")
+    @DataAmount
+    long pathBytes;
+
+    @Label("Content Bytes Hashed")
+    @Description("Bytes of the contents of files read to hash them")
+    @DataAmount
+    long contentBytesHashed;
+
+    @Label("Stopped Early")
+    boolean stopped;
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * The variant of the current build: the active profiles, the relevant user properties and the JDK version. By
+ * default no user properties are relevant, so ad-hoc properties such as {@code -Dtest=...} do not start a new variant.
+ */
+@SessionScoped
+@Named
+public class BuildVariant {
+
+    private final String key;
+    private final String id;
+
+    @Inject
+    public BuildVariant(final MavenSession session, final Config config) {
+        this(createKey(
+                session.getRequest().getActiveProfiles(),
+                session.getUserProperties(),
+                config.getVariantProperties(),
+                System.getProperty("java.version")));
+    }
+
+    BuildVariant(final String key) {
+        this.key = key;
+        this.id = createId(key);
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    static String createKey(
+            final List<String> activeProfiles,
+            final Properties userProperties,
+            final List<String> relevantProperties,
+            final String javaVersion) {
+        final var properties = new TreeMap<String, String>();
+        for (var name : userProperties.stringPropertyNames()) {
+            if (relevantProperties != null && relevantProperties.contains(name)) {
+                properties.put(name, userProperties.getProperty(name));
+            }
+        }
+        return "profiles=" + activeProfiles.stream().sorted().collect(Collectors.joining(","))
+                + ";properties="
+                + properties.entrySet().stream()
+                        .map(property -> property.getKey() + "=" + property.getValue())
+                        .collect(Collectors.joining(","))
+                + ";java=" + javaVersion;
+    }
+
+    private static String createId(final String key) {
+        try {
+            final var hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(Arrays.copyOf(hash, 8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
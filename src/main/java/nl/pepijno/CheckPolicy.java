@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+/**
+ * How a module is checked with the adaptive policy, decided from its statistics to minimize the expected time spent on
+ * the module: checking pays off when the check is cheaper than the builds it saves, and hashing the contents of files
+ * pays off when it is cheaper than the builds caused by newer files whose contents did not change.
+ */
+enum CheckPolicy {
+    CHECK,
+    ALWAYS_BUILD,
+    HASH;
+
+    /**
+     * Number of checks to collect statistics from before deviating from a plain check.
+     */
+    static final int MIN_CHECKS = 3;
+
+    /**
+     * Number of builds without a check after which a module is checked again, so its statistics stay current.
+     */
+    static final int RECHECK_INTERVAL = 10;
+
+    /**
+     * Decides how to check a module. A module with dependents in the reactor is never built without a check: its
+     * new state would make all of them rebuild as well.
+     */
+    static CheckPolicy decide(final ModuleStats stats, final boolean hasDownstream) {
+        if (stats.getChecks() < MIN_CHECKS || stats.getBuilds() == 0) {
+            return CHECK;
+        }
+        final double savedByCheck = stats.getHitRate() * stats.getBuildNanos();
+        if (!hasDownstream && stats.getCheckNanos() > savedByCheck && stats.getUncheckedBuilds() < RECHECK_INTERVAL) {
+            return ALWAYS_BUILD;
+        }
+        final double savedByHash = stats.getSpuriousRate() * stats.getBuildNanos();
+        if (stats.getHashNanos() > 0 && savedByHash > stats.getHashNanos()) {
+            return HASH;
+        }
+        return CHECK;
+    }
+
+    /**
+     * Returns whether the files of a rebuilt module are hashed when it is saved: when it is checked by hash, while its
+     * first checks are collecting statistics, which includes the time hashing takes, and for two consecutive builds
+     * every {@link #RECHECK_INTERVAL} builds, so a module checked without hashing still learns whether its newer files
+     * had unchanged contents.
+     */
+    static boolean isHashedOnSave(final CheckPolicy policy, final ModuleStats stats) {
+        return policy == HASH || stats.getChecks() < MIN_CHECKS || stats.getBuilds() % RECHECK_INTERVAL < 2;
+    }
+}
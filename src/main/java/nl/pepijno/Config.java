@@ -21,6 +21,10 @@ package nl.pepijno;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.maven.SessionScoped;
 import org.apache.maven.execution.MavenSession;
 
@@ -29,6 +33,25 @@ import org.apache.maven.execution.MavenSession;
 public class Config {
 
     private static final String BUILD_CHECK_ENABLED = "build.check.enabled";
+    private static final String LIST_ONLY = "build.check.listOnly";
+    private static final String LIST_FORMAT = "build.check.listFormat";
+    private static final String LIST_FILE = "build.check.listFile";
+    private static final String STATE_CACHE_SIZE = "build.check.stateCacheSize";
+    private static final String TEST_CACHE = "build.check.testCache";
+    private static final String CLEAN_RESTORE = "build.check.cleanRestore";
+    private static final String MAX_VARIANTS = "build.check.maxVariants";
+    private static final String VARIANT_PROPERTIES = "build.check.variantProperties";
+    private static final String SCAN_PARALLELISM = "build.check.scanParallelism";
+    private static final String TIMINGS_FILE = "build.check.timingsFile";
+    private static final String POLICY = "build.check.policy";
+    private static final String GC = "build.check.gc";
+    private static final String MAX_STATE_SIZE = "build.check.maxStateSize";
+    private static final String MAX_STATE_AGE = "build.check.maxStateAge";
+    private static final String GC_TIMEOUT = "build.check.gcTimeout";
+
+    private static final long DEFAULT_MAX_STATE_SIZE = 2048;
+    private static final long DEFAULT_MAX_STATE_AGE = 30;
+    private static final long DEFAULT_GC_TIMEOUT = 2000;
 
     private final MavenSession session;
 
@@ -41,7 +64,96 @@ public class Config {
         return getProperty(BUILD_CHECK_ENABLED, false);
     }
 
+    boolean isListOnly() {
+        return getProperty(LIST_ONLY, false);
+    }
+
+    String getListFormat() {
+        return getProperty(LIST_FORMAT, "pl");
+    }
+
+    String getListFile() {
+        return getProperty(LIST_FILE, null);
+    }
+
+    String getTimingsFile() {
+        return getProperty(TIMINGS_FILE, null);
+    }
+
+    boolean isAdaptivePolicy() {
+        return "adaptive".equals(getProperty(POLICY, "check"));
+    }
+
+    boolean isTestCacheEnabled() {
+        return getProperty(TEST_CACHE, false);
+    }
+
+    boolean isCleanRestoreEnabled() {
+        return getProperty(CLEAN_RESTORE, false);
+    }
+
+    int getMaxVariants() {
+        var value = getProperty(MAX_VARIANTS, null);
+        return value == null ? 1 : Math.max(1, Integer.parseInt(value));
+    }
+
+    List<String> getVariantProperties() {
+        var value = getProperty(VARIANT_PROPERTIES, null);
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    int getScanParallelism() {
+        var value = getProperty(SCAN_PARALLELISM, null);
+        if (value == null) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Integer.parseInt(value));
+    }
+
+    long getStateCacheBytes() {
+        var value = getProperty(STATE_CACHE_SIZE, null);
+        if (value == null) {
+            return ModuleStateCache.DEFAULT_MAX_BYTES;
+        }
+        return Long.parseLong(value) * 1024 * 1024;
+    }
+
+    boolean isGcEnabled() {
+        return getProperty(GC, true);
+    }
+
+    long getMaxStateBytes() {
+        return getLongProperty(MAX_STATE_SIZE, DEFAULT_MAX_STATE_SIZE) * 1024 * 1024;
+    }
+
+    long getMaxStateAgeMillis() {
+        return TimeUnit.DAYS.toMillis(getLongProperty(MAX_STATE_AGE, DEFAULT_MAX_STATE_AGE));
+    }
+
+    long getGcTimeoutMillis() {
+        return Math.max(1, getLongProperty(GC_TIMEOUT, DEFAULT_GC_TIMEOUT));
+    }
+
+    private long getLongProperty(final String key, final long defaultValue) {
+        var value = getProperty(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
     private boolean getProperty(final String key, final boolean defaultValue) {
+        var value = getProperty(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private String getProperty(final String key, final String defaultValue) {
         var value = session.getUserProperties().getProperty(key);
         if (value == null) {
             value = session.getSystemProperties().getProperty(key);
@@ -49,6 +161,6 @@ public class Config {
                 return defaultValue;
             }
         }
-        return Boolean.parseBoolean(value);
+        return value;
     }
 }
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.lifecycle.internal.LifecycleModuleBuilder;
+import org.apache.maven.lifecycle.internal.ProjectBuildList;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.ReactorBuildStatus;
+import org.apache.maven.lifecycle.internal.ReactorContext;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.lifecycle.internal.builder.Builder;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builder which schedules the projects of the reactor by their critical path, selected with {@code -b critical-path}.
+ * The projects are checked before the build. Up-to-date projects are dispatched first, as they finish at once and
+ * unblock their dependents. Of the other projects, the ready project with the longest remaining path to the end of
+ * the build is dispatched first, weighing each project with its recorded build time.
+ */
+@Singleton
+@Named(CriticalPathBuilder.BUILDER_ID)
+public class CriticalPathBuilder implements Builder {
+
+    static final String BUILDER_ID = "critical-path";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CriticalPathBuilder.class);
+
+    private static final long DEFAULT_BUILD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LifecycleModuleBuilder lifecycleModuleBuilder;
+    private final Provider<ReactorBuildCheck> reactorBuildCheck;
+    private final Provider<BuildCheckController> buildCheckController;
+    private final Provider<Config> config;
+
+    @Inject
+    public CriticalPathBuilder(
+            final LifecycleModuleBuilder lifecycleModuleBuilder,
+            final Provider<ReactorBuildCheck> reactorBuildCheck,
+            final Provider<BuildCheckController> buildCheckController,
+            final Provider<Config> config) {
+        this.lifecycleModuleBuilder = lifecycleModuleBuilder;
+        this.reactorBuildCheck = reactorBuildCheck;
+        this.buildCheckController = buildCheckController;
+        this.config = config;
+    }
+
+    @Override
+    public void build(
+            final MavenSession session,
+            final ReactorContext reactorContext,
+            final ProjectBuildList projectBuilds,
+            final List<TaskSegment> taskSegments,
+            final ReactorBuildStatus reactorBuildStatus)
+            throws ExecutionException, InterruptedException {
+        final int threads = Math.max(
+                1,
+                Math.min(
+                        session.getRequest().getDegreeOfConcurrency(),
+                        session.getProjects().size()));
+        final boolean parallel = threads > 1;
+        session.setParallel(parallel);
+        for (ProjectSegment segment : projectBuilds) {
+            segment.getSession().setParallel(parallel);
+        }
+
+        final var plan = plan(session);
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var service = new ExecutorCompletionService<ProjectSegment>(executor);
+            for (TaskSegment taskSegment : taskSegments) {
+                try {
+                    buildSegment(
+                            session,
+                            reactorContext,
+                            taskSegment,
+                            projectBuilds.selectSegment(taskSegment),
+                            plan,
+                            service,
+                            threads);
+                } catch (ExecutionException e) {
+                    session.getResult().addException(e);
+                    break;
+                }
+                if (reactorBuildStatus.isHalted()) {
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Plan plan(final MavenSession session) throws InterruptedException {
+        final var skipped = new HashSet<MavenProject>();
+        if (isChecked(session)) {
+            final var verdicts = reactorBuildCheck.get().check(session);
+            buildCheckController.get().putVerdicts(verdicts);
+            verdicts.forEach((project, verdict) -> {
+                if (!verdict.isRebuild()) {
+                    skipped.add(project);
+                }
+            });
+        }
+
+        final var weights = new HashMap<MavenProject, Long>();
+        long known = 0;
+        long total = 0;
+        for (var project : session.getProjectDependencyGraph().getSortedProjects()) {
+            if (skipped.contains(project)) {
+                weights.put(project, 0L);
+                continue;
+            }
+            final var stats = buildCheckController.get().loadStats(session, project);
+            if (stats.getBuilds() > 0) {
+                weights.put(project, stats.getBuildNanos());
+                known++;
+                total += stats.getBuildNanos();
+            }
+        }
+        final var defaultWeight = known > 0 ? total / known : DEFAULT_BUILD_NANOS;
+        for (var project : session.getProjectDependencyGraph().getSortedProjects()) {
+            weights.putIfAbsent(project, defaultWeight);
+        }
+        return new Plan(skipped, weights);
+    }
+
+    /**
+     * Returns whether the projects are checked when built, which is not the case when the build check is disabled or
+     * when clean is part of the build without restoring outputs.
+     */
+    private boolean isChecked(final MavenSession session) {
+        final var config = this.config.get();
+        if (!config.isBuildCheckEnabled()) {
+            return false;
+        }
+        return config.isCleanRestoreEnabled()
+                || session.getGoals().stream().noneMatch(goal -> goal.equals("clean") || goal.startsWith("clean:"));
+    }
+
+    private void buildSegment(
+            final MavenSession session,
+            final ReactorContext reactorContext,
+            final TaskSegment taskSegment,
+            final Map<MavenProject, ProjectSegment> segments,
+            final Plan plan,
+            final CompletionService<ProjectSegment> service,
+            final int threads)
+            throws ExecutionException, InterruptedException {
+        final var graph = session.getProjectDependencyGraph();
+        final var projects =
+                graph.getSortedProjects().stream().filter(segments::containsKey).toList();
+        final var criticalPaths = getCriticalPaths(projects, graph, plan.weights());
+        final var order = new HashMap<MavenProject, Integer>();
+        final var pending = new HashMap<MavenProject, Integer>();
+        final var ready = new PriorityQueue<MavenProject>(getPriority(plan.skipped(), criticalPaths, order));
+        for (var project : projects) {
+            order.put(project, order.size());
+            final var upstream = (int) graph.getUpstreamProjects(project, false).stream()
+                    .filter(segments::containsKey)
+                    .count();
+            pending.put(project, upstream);
+            if (upstream == 0) {
+                ready.add(project);
+            }
+        }
+        LOG.info(
+                "Scheduling {} projects by critical path, {} up to date, longest path {} ms",
+                projects.size(),
+                projects.stream().filter(plan.skipped()::contains).count(),
+                TimeUnit.NANOSECONDS.toMillis(criticalPaths.values().stream()
+                        .mapToLong(Long::longValue)
+                        .max()
+                        .orElse(0)));
+
+        final var reactorBuildStatus = reactorContext.getReactorBuildStatus();
+        int running = 0;
+        while (true) {
+            while (running < threads && !ready.isEmpty() && !reactorBuildStatus.isHalted()) {
+                final var project = ready.poll();
+                LOG.debug(
+                        "Dispatching {} with remaining path {} ms",
+                        project,
+                        TimeUnit.NANOSECONDS.toMillis(criticalPaths.get(project)));
+                service.submit(() -> build(session, reactorContext, segments.get(project), taskSegment));
+                running++;
+            }
+            if (running == 0) {
+                return;
+            }
+            final var finished = service.take().get().getProject();
+            running--;
+            for (var downstream : graph.getDownstreamProjects(finished, false)) {
+                if (pending.containsKey(downstream) && pending.merge(downstream, -1, Integer::sum) == 0) {
+                    ready.add(downstream);
+                }
+            }
+        }
+    }
+
+    private ProjectSegment build(
+            final MavenSession rootSession,
+            final ReactorContext reactorContext,
+            final ProjectSegment segment,
+            final TaskSegment taskSegment) {
+        final var thread = Thread.currentThread();
+        final var name = thread.getName();
+        thread.setName("mvn-builder-" + segment.getProject().getArtifactId());
+        try {
+            lifecycleModuleBuilder.buildProject(
+                    segment.getSession(), rootSession, reactorContext, segment.getProject(), taskSegment);
+            return segment;
+        } finally {
+            thread.setName(name);
+        }
+    }
+
+    /**
+     * Returns for each project the sum of the weights on the heaviest path from the project to the end of the build,
+     * including the project itself.
+     */
+    static Map<MavenProject, Long> getCriticalPaths(
+            final List<MavenProject> sortedProjects,
+            final ProjectDependencyGraph graph,
+            final Map<MavenProject, Long> weights) {
+        final var criticalPaths = new HashMap<MavenProject, Long>();
+        for (int i = sortedProjects.size() - 1; i >= 0; i--) {
+            final var project = sortedProjects.get(i);
+            long longest = 0;
+            for (var downstream : graph.getDownstreamProjects(project, false)) {
+                longest = Math.max(longest, criticalPaths.getOrDefault(downstream, 0L));
+            }
+            criticalPaths.put(project, weights.getOrDefault(project, 0L) + longest);
+        }
+        return criticalPaths;
+    }
+
+    private static Comparator<MavenProject> getPriority(
+            final Set<MavenProject> skipped,
+            final Map<MavenProject, Long> criticalPaths,
+            final Map<MavenProject, Integer> order) {
+        return (a, b) -> {
+            int result = Boolean.compare(!skipped.contains(a), !skipped.contains(b));
+            if (result == 0) {
+                result = Long.compare(criticalPaths.get(b), criticalPaths.get(a));
+            }
+            if (result == 0) {
+                result = Integer.compare(order.get(a), order.get(b));
+            }
+            return result;
+        };
+    }
+
+    private record Plan(Set<MavenProject> skipped, Map<MavenProject, Long> weights) {}
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+/**
+ * Modification times of the directories seen by a scan, keyed by their relative path with a trailing {@code /}, or
+ * the empty path for the base directory. A scan uses them to reuse the saved children of a directory whose
+ * modification time did not change instead of listing it again, like the untracked cache of git.
+ */
+final class DirectoryTimes {
+
+    static final DirectoryTimes EMPTY = new DirectoryTimes(PathSet.EMPTY, new long[0]);
+
+    private final PathSet paths;
+    private final long[] modified;
+
+    DirectoryTimes(final PathSet paths, final long[] modified) {
+        if (paths.size() != modified.length) {
+            throw new IllegalArgumentException("Expected " + paths.size() + " times but got " + modified.length);
+        }
+        this.paths = paths;
+        this.modified = modified;
+    }
+
+    PathSet getPaths() {
+        return paths;
+    }
+
+    int size() {
+        return modified.length;
+    }
+
+    long getModified(final int index) {
+        return modified[index];
+    }
+
+    /**
+     * Returns the modification time in nanoseconds since the epoch of the directory with the given path, or
+     * {@link Long#MIN_VALUE} if it is unknown.
+     */
+    long getModified(final byte[] path) {
+        if (!paths.hasPaths()) {
+            return Long.MIN_VALUE;
+        }
+        final int index = paths.indexOf(path);
+        return index >= 0 ? modified[index] : Long.MIN_VALUE;
+    }
+
+    long estimateBytes() {
+        return paths.estimateBytes() + 16L + 8L * modified.length;
+    }
+}
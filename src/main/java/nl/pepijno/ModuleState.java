@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * State of a module as saved after it was installed. A module keeps one variant per combination of active profiles,
+ * relevant user properties and JDK version it was built with, up to a maximum number of variants. Each variant has
+ * its own files and timestamp, and the current variant is the one whose outputs are in the build directory. The state
+ * is written in a compact binary format instead of with Java serialization.
+ */
+final class ModuleState {
+
+    static final ModuleState EMPTY = new ModuleState(List.of(), null);
+
+    private static final int MAGIC = 0x42434b53;
+    private static final int VERSION = 4;
+
+    private final List<Variant> variants;
+    private final String currentId;
+
+    ModuleState(final List<Variant> variants, final String currentId) {
+        this.variants = List.copyOf(variants);
+        this.currentId = currentId;
+    }
+
+    List<Variant> getVariants() {
+        return variants;
+    }
+
+    Variant getVariant(final String id) {
+        for (var variant : variants) {
+            if (variant.id().equals(id)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    boolean isCurrent(final String id) {
+        return id.equals(currentId);
+    }
+
+    /**
+     * Returns a state with the given variant as current variant, replacing an existing variant with the same id. If
+     * the state then has more than the maximum number of variants, the least recently used variants are removed.
+     */
+    ModuleState withVariant(final Variant variant, final int maxVariants) {
+        final var result = new ArrayList<Variant>(variants.size() + 1);
+        result.add(variant);
+        variants.stream()
+                .filter(other -> !other.id().equals(variant.id()))
+                .sorted(Comparator.comparingLong(Variant::lastUsed).reversed())
+                .limit(Math.max(0, maxVariants - 1))
+                .forEach(result::add);
+        return new ModuleState(result, variant.id());
+    }
+
+    /**
+     * Returns a state with the given variant as current and most recently used variant.
+     */
+    ModuleState withCurrent(final String id, final long lastUsed) {
+        final var result = new ArrayList<Variant>(variants.size());
+        for (var variant : variants) {
+            result.add(variant.id().equals(id) ? variant.withLastUsed(lastUsed) : variant);
+        }
+        return new ModuleState(result, id);
+    }
+
+    long estimateBytes() {
+        long bytes = 32L;
+        for (var variant : variants) {
+            bytes += 64L
+                    + 2L * variant.key().length()
+                    + variant.files().estimateBytes()
+                    + variant.directories().estimateBytes();
+        }
+        return bytes;
+    }
+
+    static ModuleState read(final Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new UnsupportedFormatException(file);
+            }
+            final var currentId = in.readUTF();
+            final int count = in.readInt();
+            final var variants = new ArrayList<Variant>(count);
+            for (int i = 0; i < count; i++) {
+                final var id = in.readUTF();
+                final var key = in.readUTF();
+                final long timestamp = in.readLong();
+                final long lastUsed = in.readLong();
+                final var files = readPathSet(in);
+                final var directories = readPathSet(in);
+                final var modified = new long[directories.size()];
+                for (int j = 0; j < modified.length; j++) {
+                    modified[j] = in.readLong();
+                }
+                final var directoryTimes = new DirectoryTimes(directories, modified);
+                final var contentHash = new byte[in.readUnsignedByte()];
+                in.readFully(contentHash);
+                variants.add(new Variant(id, key, timestamp, lastUsed, files, directoryTimes, contentHash));
+            }
+            return new ModuleState(variants, currentId.isEmpty() ? null : currentId);
+        }
+    }
+
+    void write(final Path file) throws IOException {
+        Utils.writeAtomically(file, stream -> {
+            final var out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(currentId == null ? "" : currentId);
+            out.writeInt(variants.size());
+            for (var variant : variants) {
+                out.writeUTF(variant.id());
+                out.writeUTF(variant.key());
+                out.writeLong(variant.timestamp());
+                out.writeLong(variant.lastUsed());
+                writePathSet(out, variant.files());
+                writePathSet(out, variant.directories().getPaths());
+                for (int i = 0; i < variant.directories().size(); i++) {
+                    out.writeLong(variant.directories().getModified(i));
+                }
+                out.writeByte(variant.contentHash().length);
+                out.write(variant.contentHash());
+            }
+            out.flush();
+        });
+    }
+
+    private static PathSet readPathSet(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final long hashHigh = in.readLong();
+        final long hashLow = in.readLong();
+        final var data = new byte[in.readInt()];
+        in.readFully(data);
+        final var offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + in.readUnsignedShort();
+        }
+        if (offsets[size] != data.length) {
+            throw new IOException("Corrupt path set");
+        }
+        return new PathSet(data, offsets, size, hashHigh, hashLow);
+    }
+
+    private static void writePathSet(final DataOutputStream out, final PathSet paths) throws IOException {
+        out.writeInt(paths.size());
+        out.writeLong(paths.getHashHigh());
+        out.writeLong(paths.getHashLow());
+        final var data = paths.getData();
+        final var offsets = paths.getOffsets();
+        out.writeInt(data.length);
+        out.write(data);
+        for (int i = 0; i < paths.size(); i++) {
+            out.writeShort(offsets[i + 1] - offsets[i]);
+        }
+    }
+
+    /**
+     * A variant of a module. The timestamp is the time in nanoseconds since the epoch after which changed files
+     * make the variant outdated, the last used time is in milliseconds since the epoch. The content hash is a hash
+     * of the contents of the files, or empty if they were not hashed.
+     */
+    record Variant(
+            String id,
+            String key,
+            long timestamp,
+            long lastUsed,
+            PathSet files,
+            DirectoryTimes directories,
+            byte[] contentHash) {
+
+        Variant(
+                final String id,
+                final String key,
+                final long timestamp,
+                final long lastUsed,
+                final PathSet files,
+                final DirectoryTimes directories) {
+            this(id, key, timestamp, lastUsed, files, directories, new byte[0]);
+        }
+
+        Variant withLastUsed(final long lastUsed) {
+            return new Variant(id, key, timestamp, lastUsed, files, directories, contentHash);
+        }
+    }
+
+    static class UnsupportedFormatException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedFormatException(final Path file) {
+            super("Unsupported format of cache file " + file);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the loaded module states for the lifetime of the JVM, so the daemon of mvnd does not read and deserialize
+ * unchanged cache files on every build. An entry is only reused if the size, modification time and file key (inode)
+ * of the cache file did not change. Entries are evicted in LRU order once the estimated size of all entries exceeds
+ * the maximum, but stay softly reachable until the garbage collector needs the memory.
+ */
+@Singleton
+@Named
+public class ModuleStateCache {
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, SoftReference<ModuleState>> softEntries = new HashMap<>();
+    private final Map<Path, Key> keys = new HashMap<>();
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long totalBytes;
+
+    ModuleState get(final Path file, final Loader loader, final Statistics statistics) throws IOException {
+        final var key = Key.of(file);
+        final var cached = lookup(key);
+        if (cached != null) {
+            statistics.hits.increment();
+            return cached;
+        }
+        statistics.misses.increment();
+        final var loaded = loader.load(file);
+        put(key, loaded);
+        return loaded;
+    }
+
+    void put(final Path file, final ModuleState state) throws IOException {
+        put(Key.of(file), state);
+    }
+
+    synchronized void setMaxBytes(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        softEntries.clear();
+        keys.clear();
+        totalBytes = 0;
+    }
+
+    private synchronized ModuleState lookup(final Key key) {
+        final var entry = entries.get(key);
+        if (entry != null) {
+            return entry.state;
+        }
+        final var reference = softEntries.remove(key);
+        final var state = reference == null ? null : reference.get();
+        if (state != null) {
+            add(key, state);
+        }
+        return state;
+    }
+
+    private synchronized void put(final Key key, final ModuleState state) {
+        final var previous = keys.get(key.path);
+        if (previous != null && !previous.equals(key)) {
+            remove(previous);
+        }
+        add(key, state);
+    }
+
+    private void add(final Key key, final ModuleState state) {
+        keys.put(key.path, key);
+        final var entry = new Entry(state, state.estimateBytes());
+        final var previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+        totalBytes += entry.bytes;
+        evict();
+    }
+
+    private void remove(final Key key) {
+        final var entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.bytes;
+        }
+        softEntries.remove(key);
+        keys.remove(key.path, key);
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            final var eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().bytes;
+            softEntries.put(eldest.getKey(), new SoftReference<>(eldest.getValue().state));
+        }
+        softEntries.values().removeIf(reference -> reference.get() == null);
+    }
+
+    @FunctionalInterface
+    interface Loader {
+        ModuleState load(Path file) throws IOException;
+    }
+
+    static class Statistics {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        long getHits() {
+            return hits.sum();
+        }
+
+        long getMisses() {
+            return misses.sum();
+        }
+
+        int getHitRate() {
+            final var total = getHits() + getMisses();
+            return total == 0 ? 0 : (int) (getHits() * 100 / total);
+        }
+    }
+
+    private record Entry(ModuleState state, long bytes) {}
+
+    private record Key(Path path, long size, FileTime lastModified, Object fileKey) {
+
+        static Key of(final Path file) throws IOException {
+            final var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Key(
+                    file.toAbsolutePath(),
+                    attributes.size(),
+                    attributes.lastModifiedTime(),
+                    Objects.requireNonNullElse(attributes.fileKey(), ""));
+        }
+    }
+}
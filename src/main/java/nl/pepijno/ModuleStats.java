@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rolling statistics of a module, kept next to its module state and across clean builds. Times are averages in
+ * nanoseconds: the time the mojos of the module took when it was rebuilt up to the install phase, the time a check
+ * took and the time hashing the contents of its files took. The hit rate is the share of checks which found the module
+ * up to date, the spurious rate the share of rebuilds because of newer files whose contents turned out unchanged.
+ */
+final class ModuleStats {
+
+    static final ModuleStats EMPTY = new ModuleStats(0, 0L, 0, 0L, 0.0, 0L, 0.0, 0);
+
+    private static final int MAGIC = 0x42434b54;
+    private static final int VERSION = 2;
+    private static final int WEIGHT = 4;
+
+    private final int builds;
+    private final long buildNanos;
+    private final int checks;
+    private final long checkNanos;
+    private final double hitRate;
+    private final long hashNanos;
+    private final double spuriousRate;
+    private final int uncheckedBuilds;
+
+    ModuleStats(final int builds, final long buildNanos) {
+        this(builds, buildNanos, 0, 0L, 0.0, 0L, 0.0, 0);
+    }
+
+    ModuleStats(
+            final int builds,
+            final long buildNanos,
+            final int checks,
+            final long checkNanos,
+            final double hitRate,
+            final long hashNanos,
+            final double spuriousRate,
+            final int uncheckedBuilds) {
+        this.builds = builds;
+        this.buildNanos = buildNanos;
+        this.checks = checks;
+        this.checkNanos = checkNanos;
+        this.hitRate = hitRate;
+        this.hashNanos = hashNanos;
+        this.spuriousRate = spuriousRate;
+        this.uncheckedBuilds = uncheckedBuilds;
+    }
+
+    int getBuilds() {
+        return builds;
+    }
+
+    long getBuildNanos() {
+        return buildNanos;
+    }
+
+    int getChecks() {
+        return checks;
+    }
+
+    long getCheckNanos() {
+        return checkNanos;
+    }
+
+    double getHitRate() {
+        return hitRate;
+    }
+
+    long getHashNanos() {
+        return hashNanos;
+    }
+
+    double getSpuriousRate() {
+        return spuriousRate;
+    }
+
+    int getUncheckedBuilds() {
+        return uncheckedBuilds;
+    }
+
+    /**
+     * Returns the stats with the given build time added. Until a few builds were recorded the average is a plain
+     * average, after that each build weighs a quarter, so the average follows modules which grow or shrink.
+     */
+    ModuleStats withBuild(final long nanos) {
+        return new ModuleStats(
+                builds + 1,
+                average(buildNanos, nanos, builds),
+                checks,
+                checkNanos,
+                hitRate,
+                hashNanos,
+                spuriousRate,
+                uncheckedBuilds);
+    }
+
+    ModuleStats withCheck(final long nanos, final boolean hit) {
+        return new ModuleStats(
+                builds,
+                buildNanos,
+                checks + 1,
+                average(checkNanos, nanos, checks),
+                average(hitRate, hit ? 1.0 : 0.0, checks),
+                hashNanos,
+                spuriousRate,
+                0);
+    }
+
+    ModuleStats withUncheckedBuild() {
+        return new ModuleStats(
+                builds, buildNanos, checks, checkNanos, hitRate, hashNanos, spuriousRate, uncheckedBuilds + 1);
+    }
+
+    /**
+     * Returns the stats with the given hash time added and, if the build was caused by newer files, whether the
+     * contents of the files were unchanged.
+     */
+    ModuleStats withHash(final long nanos, final Boolean spurious) {
+        return new ModuleStats(
+                builds,
+                buildNanos,
+                checks,
+                checkNanos,
+                hitRate,
+                hashNanos == 0 ? nanos : average(hashNanos, nanos, WEIGHT),
+                spurious == null ? spuriousRate : average(spuriousRate, spurious ? 1.0 : 0.0, WEIGHT),
+                uncheckedBuilds);
+    }
+
+    private static long average(final long average, final long value, final int count) {
+        return average + (value - average) / Math.min(count + 1, WEIGHT);
+    }
+
+    private static double average(final double average, final double value, final int count) {
+        return average + (value - average) / Math.min(count + 1, WEIGHT);
+    }
+
+    static ModuleStats read(final Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new ModuleState.UnsupportedFormatException(file);
+            }
+            return new ModuleStats(
+                    in.readInt(),
+                    in.readLong(),
+                    in.readInt(),
+                    in.readLong(),
+                    in.readDouble(),
+                    in.readLong(),
+                    in.readDouble(),
+                    in.readInt());
+        }
+    }
+
+    void write(final Path file) throws IOException {
+        Utils.writeAtomically(file, stream -> {
+            final var out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(builds);
+            out.writeLong(buildNanos);
+            out.writeInt(checks);
+            out.writeLong(checkNanos);
+            out.writeDouble(hitRate);
+            out.writeLong(hashNanos);
+            out.writeDouble(spuriousRate);
+            out.writeInt(uncheckedBuilds);
+            out.flush();
+        });
+    }
+}
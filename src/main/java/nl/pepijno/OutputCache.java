@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Archives the build outputs of a project after it was installed, so they can be restored after {@code clean}
+ * removed them instead of rebuilding a project which did not change. The outputs are the classes, the test classes
+ * and the artifacts of the project which are in its build directory. The class directories are replaced as a whole
+ * when restoring, as they may hold the outputs of another variant.
+ */
+@SessionScoped
+@Named
+public class OutputCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutputCache.class);
+    private static final String ARTIFACTS_ENTRY = "artifacts";
+    private static final String FILES_ENTRY_PREFIX = "files/";
+    private static final String MAIN_ARTIFACT = "main";
+    private static final String ATTACHED_ARTIFACT = "attached";
+
+    private final MavenProjectHelper projectHelper;
+    private final BuildVariant buildVariant;
+
+    @Inject
+    public OutputCache(final MavenProjectHelper projectHelper, final BuildVariant buildVariant) {
+        this.projectHelper = projectHelper;
+        this.buildVariant = buildVariant;
+    }
+
+    void save(final MavenSession session, final MavenProject project) {
+        final var buildDirectory = Path.of(project.getBuild().getDirectory());
+        final var outputFile = Utils.getOutputFile(session, project, buildVariant.getId());
+        try {
+            final var artifacts = new ArrayList<String>();
+            final var files = new ArrayList<Path>();
+            addDirectory(files, buildDirectory, Path.of(project.getBuild().getOutputDirectory()));
+            addDirectory(files, buildDirectory, Path.of(project.getBuild().getTestOutputDirectory()));
+            final var mainFile = project.getArtifact().getFile();
+            if (mainFile != null && mainFile.isFile() && mainFile.toPath().startsWith(buildDirectory)) {
+                artifacts.add(MAIN_ARTIFACT + "\t" + relativize(buildDirectory, mainFile.toPath()));
+                files.add(mainFile.toPath());
+            }
+            for (var attached : project.getAttachedArtifacts()) {
+                final var file = attached.getFile();
+                if (file != null && file.isFile() && file.toPath().startsWith(buildDirectory)) {
+                    artifacts.add(ATTACHED_ARTIFACT + "\t" + attached.getType() + "\t"
+                            + (attached.getClassifier() == null ? "" : attached.getClassifier()) + "\t"
+                            + relativize(buildDirectory, file.toPath()));
+                    files.add(file.toPath());
+                }
+            }
+
+            Utils.writeAtomically(outputFile, stream -> {
+                final var out = new ZipOutputStream(stream);
+                out.putNextEntry(new ZipEntry(ARTIFACTS_ENTRY));
+                out.write(String.join("\n", artifacts).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+                for (var file : files) {
+                    out.putNextEntry(new ZipEntry(FILES_ENTRY_PREFIX + relativize(buildDirectory, file)));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                }
+                out.finish();
+            });
+            LOG.debug("Saved {} output files of project {}", files.size(), project);
+        } catch (IOException e) {
+            LOG.warn("Could not save outputs of project {}", project);
+            LOG.debug(e.getMessage());
+        }
+    }
+
+    boolean restore(final MavenSession session, final MavenProject project) {
+        final var outputFile = Utils.getOutputFile(session, project, buildVariant.getId());
+        if (!Files.isRegularFile(outputFile)) {
+            LOG.debug("Output file {} not found", outputFile);
+            return false;
+        }
+        final var buildDirectory = Path.of(project.getBuild().getDirectory());
+        try (var in = new ZipInputStream(Files.newInputStream(outputFile))) {
+            var entry = in.getNextEntry();
+            if (entry == null || !ARTIFACTS_ENTRY.equals(entry.getName())) {
+                throw new IOException("Missing artifacts in " + outputFile);
+            }
+            final var artifacts = readLines(in);
+            deleteDirectory(buildDirectory, Path.of(project.getBuild().getOutputDirectory()));
+            deleteDirectory(buildDirectory, Path.of(project.getBuild().getTestOutputDirectory()));
+            int restored = 0;
+            while ((entry = in.getNextEntry()) != null) {
+                if (!entry.isDirectory() && entry.getName().startsWith(FILES_ENTRY_PREFIX)) {
+                    final var target =
+                            Utils.resolveEntry(buildDirectory, entry.getName().substring(FILES_ENTRY_PREFIX.length()));
+                    Files.createDirectories(target.getParent());
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                    restored++;
+                }
+            }
+            for (var artifact : artifacts) {
+                attach(project, buildDirectory, artifact.split("\t", -1));
+            }
+            LOG.info("Restored {} output files of project {}", restored, project);
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Could not restore outputs of project {}", project);
+            LOG.debug(e.getMessage());
+            return false;
+        }
+    }
+
+    private void attach(final MavenProject project, final Path buildDirectory, final String[] artifact)
+            throws IOException {
+        if (MAIN_ARTIFACT.equals(artifact[0]) && artifact.length == 2) {
+            project.getArtifact()
+                    .setFile(Utils.resolveEntry(buildDirectory, artifact[1]).toFile());
+        } else if (ATTACHED_ARTIFACT.equals(artifact[0]) && artifact.length == 4) {
+            final var file = Utils.resolveEntry(buildDirectory, artifact[3]).toFile();
+            if (artifact[2].isEmpty()) {
+                projectHelper.attachArtifact(project, artifact[1], file);
+            } else {
+                projectHelper.attachArtifact(project, artifact[1], artifact[2], file);
+            }
+        } else {
+            throw new IOException("Invalid artifact " + String.join(" ", artifact));
+        }
+    }
+
+    private static List<String> readLines(final ZipInputStream in) throws IOException {
+        final var content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        return content.isEmpty() ? List.of() : content.lines().toList();
+    }
+
+    private static void addDirectory(final List<Path> files, final Path buildDirectory, final Path directory)
+            throws IOException {
+        if (!directory.startsWith(buildDirectory) || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+    }
+
+    /**
+     * Deletes an output directory before restoring it, so no classes of the outputs of another variant are left.
+     */
+    private static void deleteDirectory(final Path buildDirectory, final Path directory) throws IOException {
+        if (!directory.startsWith(buildDirectory) || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (var path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String relativize(final Path buildDirectory, final Path file) {
+        return buildDirectory.relativize(file).toString().replace('\\', '/');
+    }
+}
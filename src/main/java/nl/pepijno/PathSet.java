@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Set of relative paths, stored as UTF-8 bytes in a single array in unsigned byte order. Next to the paths, the set
+ * keeps a 128-bit hash which does not depend on the order in which the paths were added, so two sets can be compared
+ * in constant time. A set built without retaining paths only has a size and a hash.
+ */
+final class PathSet {
+
+    static final PathSet EMPTY = new Builder(true).build();
+
+    private static final long SEED_HIGH = 0xcbf29ce484222325L;
+    private static final long SEED_LOW = 0x9e3779b97f4a7c15L;
+    private static final long PRIME_HIGH = 0x100000001b3L;
+    private static final long PRIME_LOW = 0xbf58476d1ce4e5b9L;
+
+    /**
+     * Shift and multipliers of the finalizer of MurmurHash3, which spreads every input bit over the whole hash.
+     */
+    private static final int MIX_SHIFT = 33;
+
+    private static final long MIX_FIRST = 0xff51afd7ed558ccdL;
+    private static final long MIX_SECOND = 0xc4ceb9fe1a85ec53L;
+
+    /**
+     * Estimated size of a path set object with its fields, without its arrays.
+     */
+    private static final long SHALLOW_BYTES = 48;
+
+    private final byte[] data;
+    private final int[] offsets;
+    private final int size;
+    private final long hashHigh;
+    private final long hashLow;
+
+    PathSet(final byte[] data, final int[] offsets, final int size, final long hashHigh, final long hashLow) {
+        this.data = data;
+        this.offsets = offsets;
+        this.size = size;
+        this.hashHigh = hashHigh;
+        this.hashLow = hashLow;
+    }
+
+    static PathSet of(final String... paths) {
+        final var builder = new Builder(true);
+        for (var path : paths) {
+            builder.add(path.getBytes(StandardCharsets.UTF_8));
+        }
+        return builder.build();
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean hasPaths() {
+        return offsets != null;
+    }
+
+    long getHashHigh() {
+        return hashHigh;
+    }
+
+    long getHashLow() {
+        return hashLow;
+    }
+
+    byte[] get(final int index) {
+        return Arrays.copyOfRange(data, offsets[index], offsets[index + 1]);
+    }
+
+    String getString(final int index) {
+        return new String(data, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    boolean contains(final byte[] path) {
+        return indexOf(path) >= 0;
+    }
+
+    int indexOf(final byte[] path) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(middle, path);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the first path which is not smaller than the given path.
+     */
+    int lowerBound(final byte[] path) {
+        final int index = indexOf(path);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    boolean startsWith(final int index, final byte[] prefix) {
+        final int from = offsets[index];
+        return offsets[index + 1] - from >= prefix.length
+                && Arrays.equals(data, from, from + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Returns the position of the first occurrence of the given byte in the path at the given index, starting at the
+     * given position in the path, or -1 if it does not occur.
+     */
+    int indexOf(final int index, final byte value, final int fromPosition) {
+        final int from = offsets[index];
+        for (int i = from + fromPosition; i < offsets[index + 1]; i++) {
+            if (data[i] == value) {
+                return i - from;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the size and hash of both sets, which does not need the paths themselves.
+     */
+    boolean sameAs(final PathSet other) {
+        return size == other.size && hashHigh == other.hashHigh && hashLow == other.hashLow;
+    }
+
+    long estimateBytes() {
+        return SHALLOW_BYTES
+                + (data == null ? 0 : 16L + data.length)
+                + (offsets == null ? 0 : 16L + 4L * offsets.length);
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    private int compare(final int index, final byte[] path) {
+        final int from = offsets[index];
+        return Arrays.compareUnsigned(data, from, offsets[index + 1], path, 0, path.length);
+    }
+
+    static class Builder {
+
+        private final boolean retainPaths;
+        private byte[] data;
+        private int[] offsets;
+        private int size;
+        private int length;
+        private boolean sorted = true;
+        private long hashHigh;
+        private long hashLow;
+
+        Builder(final boolean retainPaths) {
+            this.retainPaths = retainPaths;
+            if (retainPaths) {
+                data = new byte[256];
+                offsets = new int[17];
+            }
+        }
+
+        Builder add(final byte[] path) {
+            return add(path, 0, path.length);
+        }
+
+        Builder add(final byte[] path, final int from, final int to) {
+            hashHigh += hash(SEED_HIGH, PRIME_HIGH, path, from, to);
+            hashLow += hash(SEED_LOW, PRIME_LOW, path, from, to);
+            if (retainPaths) {
+                final int pathLength = to - from;
+                if (length + pathLength > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, length + pathLength));
+                }
+                if (size + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                if (size > 0 && Arrays.compareUnsigned(data, offsets[size - 1], length, path, from, to) >= 0) {
+                    sorted = false;
+                }
+                System.arraycopy(path, from, data, length, pathLength);
+                length += pathLength;
+                offsets[size + 1] = length;
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends the paths of another builder, which must retain paths if this builder does. The hashes of the
+         * other builder are added instead of hashing its paths again.
+         */
+        Builder addAll(final Builder other) {
+            if (retainPaths && other.size > 0) {
+                if (length + other.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, length + other.length));
+                }
+                if (size + other.size + 1 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, size + other.size + 1));
+                }
+                if (!other.sorted || size > 0 && compareUnsigned(other, 0) >= 0) {
+                    sorted = false;
+                }
+                System.arraycopy(other.data, 0, data, length, other.length);
+                for (int i = 1; i <= other.size; i++) {
+                    offsets[size + i] = length + other.offsets[i];
+                }
+                length += other.length;
+            }
+            hashHigh += other.hashHigh;
+            hashLow += other.hashLow;
+            size += other.size;
+            return this;
+        }
+
+        private int compareUnsigned(final Builder other, final int index) {
+            return Arrays.compareUnsigned(
+                    data, offsets[size - 1], length, other.data, other.offsets[index], other.offsets[index + 1]);
+        }
+
+        boolean isSorted() {
+            return sorted;
+        }
+
+        PathSet build() {
+            if (!retainPaths) {
+                return new PathSet(null, null, size, hashHigh, hashLow);
+            }
+            if (!sorted) {
+                return sort();
+            }
+            return new PathSet(Arrays.copyOf(data, length), Arrays.copyOf(offsets, size + 1), size, hashHigh, hashLow);
+        }
+
+        private PathSet sort() {
+            final var order = IntStream.range(0, size)
+                    .boxed()
+                    .sorted((a, b) ->
+                            Arrays.compareUnsigned(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            final var sortedData = new byte[length];
+            final var sortedOffsets = new int[size + 1];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                final int from = offsets[order[i]];
+                final int pathLength = offsets[order[i] + 1] - from;
+                System.arraycopy(data, from, sortedData, position, pathLength);
+                position += pathLength;
+                sortedOffsets[i + 1] = position;
+            }
+            return new PathSet(sortedData, sortedOffsets, size, hashHigh, hashLow);
+        }
+    }
+
+    private static long hash(final long seed, final long prime, final byte[] path, final int from, final int to) {
+        long hash = seed;
+        for (int i = from; i < to; i++) {
+            hash ^= Byte.toUnsignedInt(path[i]);
+            hash *= prime;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_FIRST;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_SECOND;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.SessionScoped;
+
+/**
+ * Walks the files of a project which are relevant for the build check: all files in {@code src} and the files
+ * directly in the base directory which are not hidden. Paths are collected relative to the base directory, separated
+ * by {@code /} and in unsigned byte order of their UTF-8 encoding.
+ *
+ * <p>When given the previously saved variant, a directory whose modification time equals the saved one is not listed
+ * again: its children are taken from the saved files and directories and only stat'ed. Adding, removing or renaming
+ * an entry changes the modification time of its directory, so only edited files remain, and those are caught by
+ * their own modification time. Directories modified shortly before the saved timestamp are always listed, as they
+ * may have changed again within the resolution of the file system clock.
+ *
+ * <p>With a parallelism above one the directories are walked by a fork/join pool of that many workers, which is
+ * worthwhile for modules with very many files.
+ */
+@SessionScoped
+@Named
+public class ProjectScanner {
+
+    static final String SOURCE_DIRECTORY = "src";
+
+    private static final long RACY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final int parallelism;
+    private ForkJoinPool pool;
+
+    @Inject
+    public ProjectScanner(final Config config) {
+        this(config.getScanParallelism());
+    }
+
+    ProjectScanner(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    String getType() {
+        return parallelism > 1 ? "parallel" : "sequential";
+    }
+
+    Scan scan(final Path basedir, final boolean retainPaths) throws IOException {
+        return scan(basedir, retainPaths, null);
+    }
+
+    Scan scan(final Path basedir, final boolean retainPaths, final ModuleState.Variant previous) throws IOException {
+        return walk(basedir, new Walk(retainPaths, previous, false, parallelism > 1));
+    }
+
+    /**
+     * Scans a project to check it against its saved variant, without retaining paths. The scan stops as soon as a
+     * file newer than the variant or a file which is not in the variant is found, in which case the result is
+     * incomplete and marked as stopped.
+     */
+    Scan check(final Path basedir, final ModuleState.Variant previous) throws IOException {
+        return walk(basedir, new Walk(false, previous, true, parallelism > 1));
+    }
+
+    private Scan walk(final Path basedir, final Walk walk) throws IOException {
+        final var attributes = Files.readAttributes(basedir, BasicFileAttributes.class);
+        final var task = new DirectoryTask(walk, basedir, attributes, new byte[0], true);
+        try {
+            final var accumulator = walk.parallel ? getPool().invoke(task) : task.compute();
+            return accumulator.toScan(walk.stopped);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns whether all given directories still exist with the same modification time, which means no files were
+     * added, removed or renamed in them.
+     */
+    boolean isUnchanged(final Path basedir, final DirectoryTimes directories) throws IOException {
+        if (directories.size() == 0) {
+            return false;
+        }
+        for (int i = 0; i < directories.size(); i++) {
+            final var directory = basedir.resolve(directories.getPaths().getString(i));
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(directory, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            if (!attributes.isDirectory() || toNanos(attributes) != directories.getModified(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a SHA-256 hash of the paths, contents and lengths of the given files, relative to the base directory.
+     */
+    static ContentHash hashContents(final Path basedir, final PathSet files) throws IOException {
+        return hashContents(basedir, files, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a hash of the given files as above, or an empty hash if one of them was modified after the given time
+     * in nanoseconds since the epoch. The time is read after the contents, so a file modified while it is hashed is
+     * noticed as well.
+     */
+    static ContentHash hashContents(final Path basedir, final PathSet files, final long notModifiedAfter)
+            throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final var buffer = new byte[64 * 1024];
+        long bytes = 0;
+        for (int i = 0; i < files.size(); i++) {
+            digest.update(files.get(i));
+            digest.update((byte) 0);
+            long length = 0;
+            final var file = basedir.resolve(files.getString(i));
+            try (var in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                    length += read;
+                }
+            }
+            bytes += length;
+            if (notModifiedAfter != Long.MAX_VALUE
+                    && toNanos(Files.readAttributes(file, BasicFileAttributes.class)) > notModifiedAfter) {
+                return new ContentHash(new byte[0], bytes);
+            }
+            for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                digest.update((byte) (length >>> shift));
+            }
+        }
+        return new ContentHash(digest.digest(), bytes);
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static List<Child> list(final Path directory, final boolean root) throws IOException {
+        final var children = new ArrayList<Child>();
+        try (var stream = Files.newDirectoryStream(directory)) {
+            for (var path : stream) {
+                final var name = path.getFileName().toString();
+                if (root && name.startsWith(".")) {
+                    continue;
+                }
+                final var attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attributes.isDirectory() && (!root || SOURCE_DIRECTORY.equals(name))) {
+                    children.add(new Child(path, (name + "/").getBytes(StandardCharsets.UTF_8), attributes));
+                } else if (attributes.isRegularFile()) {
+                    children.add(new Child(path, name.getBytes(StandardCharsets.UTF_8), attributes));
+                }
+            }
+        }
+        children.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+        return children;
+    }
+
+    /**
+     * Returns the saved children of the given directory, or {@code null} if one of them is gone or changed from file
+     * to directory or the other way around, in which case the directory has to be listed after all.
+     */
+    private static List<Child> reuse(final Path directory, final byte[] prefix, final ModuleState.Variant previous)
+            throws IOException {
+        final var children = new ArrayList<Child>();
+        if (!addSaved(children, directory, prefix, previous.files(), false)
+                || !addSaved(children, directory, prefix, previous.directories().getPaths(), true)) {
+            return null;
+        }
+        children.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+        return children;
+    }
+
+    /**
+     * Adds the saved paths which are direct children of the directory with the given prefix. Paths below a
+     * subdirectory are skipped at once by searching for the first path after the range starting with the
+     * subdirectory, which is the first path not smaller than the subdirectory name followed by {@code 0}, the
+     * character after {@code /}.
+     */
+    private static boolean addSaved(
+            final List<Child> children,
+            final Path directory,
+            final byte[] prefix,
+            final PathSet paths,
+            final boolean directories)
+            throws IOException {
+        int index = paths.lowerBound(prefix);
+        while (index < paths.size() && paths.startsWith(index, prefix)) {
+            final int slash = paths.indexOf(index, (byte) '/', prefix.length);
+            if (slash < 0) {
+                if (!directories) {
+                    final var path = paths.get(index);
+                    if (!addSaved(children, directory, prefix, path, path.length, false)) {
+                        return false;
+                    }
+                }
+                index++;
+                continue;
+            }
+            final var path = paths.get(index);
+            if (directories
+                    && slash == path.length - 1
+                    && !addSaved(children, directory, prefix, path, slash + 1, true)) {
+                return false;
+            }
+            final var end = Arrays.copyOf(path, slash + 1);
+            end[slash] = (byte) ('/' + 1);
+            index = paths.lowerBound(end);
+        }
+        return true;
+    }
+
+    private static boolean addSaved(
+            final List<Child> children,
+            final Path directory,
+            final byte[] prefix,
+            final byte[] path,
+            final int end,
+            final boolean isDirectory)
+            throws IOException {
+        final var key = Arrays.copyOfRange(path, prefix.length, end);
+        final var name = new String(key, 0, isDirectory ? key.length - 1 : key.length, StandardCharsets.UTF_8);
+        final var child = directory.resolve(name);
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (isDirectory ? !attributes.isDirectory() : !attributes.isRegularFile()) {
+            return false;
+        }
+        children.add(new Child(child, key, attributes));
+        return true;
+    }
+
+    private static byte[] concat(final byte[] prefix, final byte[] name) {
+        final var path = Arrays.copyOf(prefix, prefix.length + name.length);
+        System.arraycopy(name, 0, path, prefix.length, name.length);
+        return path;
+    }
+
+    static long toNanos(final BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private record Child(Path path, byte[] key, BasicFileAttributes attributes) {}
+
+    /**
+     * Settings and cancellation flag shared by the tasks of one scan.
+     */
+    private static final class Walk {
+
+        private final boolean retainPaths;
+        private final ModuleState.Variant previous;
+        private final boolean stopEarly;
+        private final boolean parallel;
+        private volatile boolean stopped;
+
+        Walk(
+                final boolean retainPaths,
+                final ModuleState.Variant previous,
+                final boolean stopEarly,
+                final boolean parallel) {
+            this.retainPaths = retainPaths;
+            this.previous = previous;
+            this.stopEarly = stopEarly && previous != null;
+            this.parallel = parallel;
+        }
+
+        boolean isUnchanged(final byte[] prefix, final long modified) {
+            if (previous == null || !previous.files().hasPaths()) {
+                return false;
+            }
+            final var saved = previous.directories().getModified(prefix);
+            return saved != Long.MIN_VALUE && saved == modified && saved < previous.timestamp() - RACY_NANOS;
+        }
+
+        /**
+         * Stops the scan if the given file is newer than the saved variant or, when it was found by listing its
+         * directory, is not in the saved variant.
+         */
+        void checkFile(final byte[] relativePath, final BasicFileAttributes attributes, final boolean listed) {
+            if (stopEarly
+                    && (toNanos(attributes) > previous.timestamp()
+                            || listed && !previous.files().contains(relativePath))) {
+                stopped = true;
+            }
+        }
+    }
+
+    /**
+     * Scans a directory. Subdirectories are forked as separate tasks, so idle workers steal them, and their results
+     * are merged in path order when joined. Each task has its own accumulator, so no locks are needed.
+     */
+    private static final class DirectoryTask extends RecursiveTask<Accumulator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Walk walk;
+        private final transient Path directory;
+        private final transient BasicFileAttributes attributes;
+        private final byte[] prefix;
+        private final boolean root;
+
+        DirectoryTask(
+                final Walk walk,
+                final Path directory,
+                final BasicFileAttributes attributes,
+                final byte[] prefix,
+                final boolean root) {
+            this.walk = walk;
+            this.directory = directory;
+            this.attributes = attributes;
+            this.prefix = prefix;
+            this.root = root;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            final var accumulator = new Accumulator(walk.retainPaths);
+            if (walk.stopped) {
+                return accumulator;
+            }
+            try {
+                scanDirectory(accumulator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return accumulator;
+        }
+
+        private void scanDirectory(final Accumulator accumulator) throws IOException {
+            final var modified = toNanos(attributes);
+            accumulator.addDirectory(prefix, modified);
+            List<Child> children = null;
+            if (walk.isUnchanged(prefix, modified)) {
+                children = reuse(directory, prefix, walk.previous);
+            }
+            final var listed = children == null;
+            if (listed) {
+                children = list(directory, root);
+                accumulator.directoriesListed++;
+            } else {
+                accumulator.directoriesReused++;
+            }
+
+            final var relativePaths = new byte[children.size()][];
+            final var subtasks = new DirectoryTask[children.size()];
+            for (int i = 0; i < children.size() && !walk.stopped; i++) {
+                final var child = children.get(i);
+                relativePaths[i] = concat(prefix, child.key);
+                if (child.attributes.isDirectory()) {
+                    subtasks[i] = new DirectoryTask(walk, child.path, child.attributes, relativePaths[i], false);
+                    if (walk.parallel) {
+                        subtasks[i].fork();
+                    }
+                } else {
+                    walk.checkFile(relativePaths[i], child.attributes, listed);
+                }
+            }
+            for (int i = 0; i < children.size() && relativePaths[i] != null; i++) {
+                if (subtasks[i] != null) {
+                    accumulator.addAll(walk.parallel ? subtasks[i].join() : subtasks[i].compute());
+                } else {
+                    accumulator.addFile(relativePaths[i], children.get(i).attributes, root);
+                }
+            }
+        }
+    }
+
+    private static class Accumulator {
+
+        private final PathSet.Builder files;
+        private final PathSet.Builder directories;
+        private long[] directoryTimes;
+        private int directoryCount;
+        private long newestSource = Long.MIN_VALUE;
+        private long newestRoot = Long.MIN_VALUE;
+        private int directoriesListed;
+        private int directoriesReused;
+        private long pathBytes;
+
+        Accumulator(final boolean retainPaths) {
+            files = new PathSet.Builder(retainPaths);
+            directories = retainPaths ? new PathSet.Builder(true) : null;
+            directoryTimes = retainPaths ? new long[4] : null;
+        }
+
+        void addDirectory(final byte[] relativePath, final long modified) {
+            if (directories == null) {
+                return;
+            }
+            directories.add(relativePath);
+            ensureDirectoryCapacity(directoryCount + 1);
+            directoryTimes[directoryCount++] = modified;
+        }
+
+        void addFile(final byte[] relativePath, final BasicFileAttributes attributes, final boolean root) {
+            files.add(relativePath);
+            pathBytes += relativePath.length;
+            final var modified = toNanos(attributes);
+            if (root) {
+                newestRoot = Math.max(newestRoot, modified);
+            } else {
+                newestSource = Math.max(newestSource, modified);
+            }
+        }
+
+        void addAll(final Accumulator other) {
+            files.addAll(other.files);
+            if (directories != null) {
+                directories.addAll(other.directories);
+                ensureDirectoryCapacity(directoryCount + other.directoryCount);
+                System.arraycopy(other.directoryTimes, 0, directoryTimes, directoryCount, other.directoryCount);
+                directoryCount += other.directoryCount;
+            }
+            newestSource = Math.max(newestSource, other.newestSource);
+            newestRoot = Math.max(newestRoot, other.newestRoot);
+            directoriesListed += other.directoriesListed;
+            directoriesReused += other.directoriesReused;
+            pathBytes += other.pathBytes;
+        }
+
+        private void ensureDirectoryCapacity(final int capacity) {
+            if (capacity > directoryTimes.length) {
+                directoryTimes = Arrays.copyOf(directoryTimes, Math.max(directoryTimes.length * 2, capacity));
+            }
+        }
+
+        Scan toScan(final boolean stopped) {
+            // The directories are visited in path order, so the times line up with the sorted paths unless the
+            // builder had to sort them, in which case the times are not kept.
+            final var directoryTimes = directories == null || !directories.isSorted()
+                    ? DirectoryTimes.EMPTY
+                    : new DirectoryTimes(directories.build(), Arrays.copyOf(this.directoryTimes, directoryCount));
+            return new Scan(
+                    files.build(),
+                    directoryTimes,
+                    newestSource,
+                    newestRoot,
+                    directoriesListed,
+                    directoriesReused,
+                    pathBytes,
+                    stopped);
+        }
+    }
+
+    /**
+     * Result of a scan. The modification times are in nanoseconds since the epoch, or {@link Long#MIN_VALUE} if
+     * there were no files. The directory times are only kept when the paths are retained. The path bytes are the bytes
+     * of the paths added to the set hash. A stopped scan is incomplete because a newer or unknown file was found.
+     */
+    record Scan(
+            PathSet files,
+            DirectoryTimes directories,
+            long newestSource,
+            long newestRoot,
+            int directoriesListed,
+            int directoriesReused,
+            long pathBytes,
+            boolean stopped) {}
+
+    /**
+     * Hash of the contents of files, which is empty if they were modified while hashing, and the number of bytes of
+     * contents read.
+     */
+    record ContentHash(byte[] hash, long bytes) {}
+}
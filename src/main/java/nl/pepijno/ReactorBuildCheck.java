@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@SessionScoped
+@Named
+public class ReactorBuildCheck {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactorBuildCheck.class);
+
+    private final BuildCheckController buildCheckController;
+
+    @Inject
+    public ReactorBuildCheck(final BuildCheckController buildCheckController) {
+        this.buildCheckController = buildCheckController;
+    }
+
+    Map<MavenProject, Verdict> check(final MavenSession session) throws InterruptedException {
+        final var graph = session.getProjectDependencyGraph();
+        final var projects = graph.getSortedProjects();
+
+        final var tasks = new ArrayList<Callable<Verdict>>(projects.size());
+        for (var project : projects) {
+            tasks.add(() -> buildCheckController.check(session, project));
+        }
+        final var threads =
+                Math.max(1, Math.min(projects.size(), Runtime.getRuntime().availableProcessors()));
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var verdicts = new LinkedHashMap<MavenProject, Verdict>();
+        try {
+            final var futures = executor.invokeAll(tasks);
+            for (int i = 0; i < projects.size(); i++) {
+                verdicts.put(projects.get(i), getVerdict(futures.get(i), projects.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (var project : projects) {
+            if (verdicts.get(project).isRebuild()) {
+                for (var downstream : graph.getDownstreamProjects(project, true)) {
+                    verdicts.computeIfPresent(
+                            downstream, (p, verdict) -> verdict.isRebuild() ? verdict : Verdict.UPSTREAM_REBUILT);
+                }
+            }
+        }
+        return verdicts;
+    }
+
+    static List<MavenProject> getRebuilt(final Map<MavenProject, Verdict> verdicts) {
+        return verdicts.entrySet().stream()
+                .filter(entry -> entry.getValue().isRebuild())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static Verdict getVerdict(final Future<Verdict> future, final MavenProject project)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOG.warn("Could not check project {}", project);
+            LOG.debug(e.getMessage());
+            return Verdict.ERROR;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.maven.project.MavenProject;
+
+class RebuildList {
+
+    private RebuildList() {}
+
+    static String format(final String format, final Map<MavenProject, Verdict> verdicts) {
+        if ("json".equalsIgnoreCase(format)) {
+            return toJson(verdicts);
+        }
+        if ("pl".equalsIgnoreCase(format)) {
+            return toProjectList(verdicts);
+        }
+        throw new IllegalArgumentException("Unsupported list format: " + format);
+    }
+
+    static String toProjectList(final Map<MavenProject, Verdict> verdicts) {
+        return ReactorBuildCheck.getRebuilt(verdicts).stream()
+                .map(RebuildList::getId)
+                .collect(Collectors.joining(","));
+    }
+
+    static String toJson(final Map<MavenProject, Verdict> verdicts) {
+        var modules = verdicts.entrySet().stream()
+                .filter(entry -> entry.getValue().isRebuild())
+                .map(entry -> "{\"id\":" + quote(getId(entry.getKey()))
+                        + ",\"basedir\":" + quote(String.valueOf(entry.getKey().getBasedir()))
+                        + ",\"verdict\":" + quote(entry.getValue().name()) + "}")
+                .collect(Collectors.joining(","));
+        return "{\"modules\":[" + modules + "]}";
+    }
+
+    private static String getId(final MavenProject project) {
+        return project.getGroupId() + ":" + project.getArtifactId();
+    }
+
+    private static String quote(final String value) {
+        var builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes build check state from the local repository at the end of a session. The state of every module version is
+ * tracked in an index file in the local repository with its size and the last time it was part of a reactor, so the
+ * local repository does not need to be scanned. Of the modules in the reactor, the files of variants which are no
+ * longer saved are removed, and the state of other versions which is not tracked yet is added to the index with the
+ * time it was last modified. Versions without state are indexed with a size of zero, so they are not listed again
+ * until they are older than the maximum age. Then the least recently used states are removed until the total size and
+ * age of the tracked states are within their budgets, so the state of another version is only removed when it was not
+ * used in any reactor for long enough.
+ */
+@SessionScoped
+@Named
+public class StateCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StateCollector.class);
+
+    static final String INDEX_FILE = ".build-check/index";
+
+    private static final int MAGIC = 0x42434b49;
+    private static final int VERSION = 1;
+
+    private final Config config;
+
+    @Inject
+    public StateCollector(final Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Collects the state in a daemon thread and waits for it at most the configured timeout. When the timeout
+     * passes, the thread stops at the next module and writes the index.
+     */
+    void collect(final MavenSession session) {
+        final var repository = Path.of(session.getLocalRepository().getBasedir());
+        final var projects = List.copyOf(session.getProjects());
+        final long timeout = config.getGcTimeoutMillis();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        final var thread = new Thread(
+                () -> {
+                    try {
+                        final var result = collect(repository, projects, System.currentTimeMillis(), deadline);
+                        if (result.removed() > 0) {
+                            LOG.info(
+                                    "Removed {} build check files ({} kB), tracking {} module states ({} kB)",
+                                    result.removed(),
+                                    result.removedBytes() / 1024,
+                                    result.tracked(),
+                                    result.trackedBytes() / 1024);
+                        }
+                    } catch (IOException e) {
+                        LOG.warn("Could not remove old build check state");
+                        LOG.debug(e.getMessage());
+                    }
+                },
+                "build-check-gc");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            thread.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collects the state of the given projects until the deadline in nanoseconds passes. At least one project is
+     * collected, and each pass starts at another project, so a pass which times out does not skip the same projects
+     * every time.
+     */
+    Result collect(final Path repository, final List<MavenProject> projects, final long now, final long deadline)
+            throws IOException {
+        final var indexFile = repository.resolve(INDEX_FILE);
+        final var index = readIndex(indexFile);
+        final var removed = new Removed();
+        final var reactorKeys = new HashSet<String>();
+        final int start = projects.isEmpty() ? 0 : (int) Math.floorMod(now, (long) projects.size());
+        for (int i = 0; i < projects.size(); i++) {
+            if (i > 0 && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            final var project = projects.get((start + i) % projects.size());
+            final var location = Utils.getLocation(repository, project);
+            final var prefix = Utils.getCacheFilenamePrefix(project);
+            trackOtherVersions(repository, project, index, now);
+            removeUnknownVariants(location, prefix, removed);
+            final var key = getKey(repository, location, prefix);
+            final long size = getSize(location, prefix);
+            if (size > 0) {
+                index.put(key, new Entry(now, size));
+                reactorKeys.add(key);
+            } else {
+                index.remove(key);
+            }
+        }
+        enforceBudgets(repository, index, reactorKeys, now, deadline, removed);
+        writeIndex(indexFile, index);
+        return new Result(
+                removed.files,
+                removed.bytes,
+                (int) index.values().stream().filter(entry -> entry.size() > 0).count(),
+                index.values().stream().mapToLong(Entry::size).sum());
+    }
+
+    /**
+     * Adds the state of other versions of a module to the index, if it is not tracked yet because it was saved
+     * before the index existed or by a build which timed out collecting. A version without state is added with a
+     * size of zero at the current time.
+     */
+    private static void trackOtherVersions(
+            final Path repository, final MavenProject project, final Map<String, Entry> index, final long now)
+            throws IOException {
+        final var versions = Utils.getLocation(repository, project).getParent();
+        if (!Files.isDirectory(versions)) {
+            return;
+        }
+        try (var directories = Files.list(versions)) {
+            for (var directory : directories.toList()) {
+                final var version = directory.getFileName().toString();
+                final var prefix = project.getArtifactId() + "-" + version;
+                final var key = getKey(repository, directory, prefix);
+                if (version.equals(project.getVersion()) || index.containsKey(key) || !Files.isDirectory(directory)) {
+                    continue;
+                }
+                long lastModified = 0;
+                long size = 0;
+                for (var file : getStateFiles(directory, prefix)) {
+                    try {
+                        lastModified = Math.max(
+                                lastModified, Files.getLastModifiedTime(file).toMillis());
+                        size += Files.size(file);
+                    } catch (NoSuchFileException e) {
+                        LOG.debug("File {} was removed concurrently", file);
+                    }
+                }
+                index.put(key, size > 0 ? new Entry(lastModified, size) : new Entry(now, 0));
+            }
+        }
+    }
+
+    /**
+     * Removes the outputs and test results of variants which are not in the saved module state, for example because
+     * the state was evicted by a build with fewer variants or could not be read.
+     */
+    private static void removeUnknownVariants(final Path location, final String prefix, final Removed removed)
+            throws IOException {
+        if (!Files.isDirectory(location)) {
+            return;
+        }
+        final var variantIds = getVariantIds(location.resolve(prefix + Utils.CACHE_FILE_SUFFIX));
+        try (var files = Files.list(location)) {
+            for (var file : files.toList()) {
+                final var name = file.getFileName().toString();
+                if (name.startsWith(prefix + "-")
+                        && Utils.isVariantFile(name)
+                        && !variantIds.contains(getVariantId(name, prefix.length() + 1))) {
+                    LOG.debug("Removing file {} of unknown variant", file);
+                    removed.remove(file);
+                }
+            }
+        }
+    }
+
+    private static Set<String> getVariantIds(final Path cacheFile) {
+        final var ids = new HashSet<String>();
+        if (Files.exists(cacheFile)) {
+            try {
+                for (var variant : ModuleState.read(cacheFile).getVariants()) {
+                    ids.add(variant.id());
+                }
+            } catch (IOException e) {
+                LOG.debug("Could not read module state {}: {}", cacheFile, e.getMessage());
+            }
+        }
+        return ids;
+    }
+
+    private static String getVariantId(final String name, final int from) {
+        int end = from;
+        while (end < name.length() && name.charAt(end) != '-' && name.charAt(end) != '.') {
+            end++;
+        }
+        return name.substring(from, end);
+    }
+
+    /**
+     * Removes the least recently used states which are older than the maximum age or exceed the maximum total size.
+     * The states of the modules in the reactor are kept.
+     */
+    private void enforceBudgets(
+            final Path repository,
+            final Map<String, Entry> index,
+            final Set<String> reactorKeys,
+            final long now,
+            final long deadline,
+            final Removed removed)
+            throws IOException {
+        final long maxAge = config.getMaxStateAgeMillis();
+        final long maxBytes = config.getMaxStateBytes();
+        long total = index.values().stream().mapToLong(Entry::size).sum();
+        final var candidates = new ArrayList<>(index.entrySet());
+        candidates.sort(
+                Comparator.comparingLong(candidate -> candidate.getValue().lastAccess()));
+        for (var candidate : candidates) {
+            if (System.nanoTime() - deadline > 0) {
+                break;
+            }
+            final var entry = candidate.getValue();
+            final var expired = now - entry.lastAccess() > maxAge;
+            if (reactorKeys.contains(candidate.getKey()) || (!expired && (total <= maxBytes || entry.size() == 0))) {
+                continue;
+            }
+            if (entry.size() > 0) {
+                final var path = repository.resolve(candidate.getKey());
+                LOG.debug("Removing least recently used build check state {}", path);
+                removeState(path.getParent(), path.getFileName().toString(), removed);
+            }
+            index.remove(candidate.getKey());
+            total -= entry.size();
+        }
+    }
+
+    private static void removeState(final Path directory, final String prefix, final Removed removed)
+            throws IOException {
+        for (var file : getStateFiles(directory, prefix)) {
+            removed.remove(file);
+        }
+    }
+
+    private static long getSize(final Path directory, final String prefix) throws IOException {
+        long size = 0;
+        for (var file : getStateFiles(directory, prefix)) {
+            try {
+                size += Files.size(file);
+            } catch (NoSuchFileException e) {
+                LOG.debug("File {} was removed concurrently", file);
+            }
+        }
+        return size;
+    }
+
+    private static List<Path> getStateFiles(final Path directory, final String prefix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> {
+                        final var name = file.getFileName().toString();
+                        return name.startsWith(prefix) && Utils.isStateFile(name);
+                    })
+                    .toList();
+        }
+    }
+
+    private static String getKey(final Path repository, final Path directory, final String prefix) {
+        return repository.relativize(directory).resolve(prefix).toString().replace('\\', '/');
+    }
+
+    /**
+     * Reads the index, which is empty if it does not exist or cannot be read. It is written again after collecting.
+     */
+    static Map<String, Entry> readIndex(final Path indexFile) {
+        final var index = new LinkedHashMap<String, Entry>();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new ModuleState.UnsupportedFormatException(indexFile);
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                index.put(in.readUTF(), new Entry(in.readLong(), in.readLong()));
+            }
+        } catch (NoSuchFileException e) {
+            LOG.debug("No build check index at {}", indexFile);
+        } catch (IOException e) {
+            LOG.debug("Could not read build check index {}, starting a new one: {}", indexFile, e.getMessage());
+            index.clear();
+        }
+        return index;
+    }
+
+    static void writeIndex(final Path indexFile, final Map<String, Entry> index) throws IOException {
+        Utils.writeAtomically(indexFile, stream -> {
+            final var out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(index.size());
+            for (var entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().lastAccess());
+                out.writeLong(entry.getValue().size());
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * The state of a module version in the index, with the time in milliseconds since the epoch at which it was
+     * last part of a reactor and the total size of its files.
+     */
+    record Entry(long lastAccess, long size) {}
+
+    record Result(int removed, long removedBytes, int tracked, long trackedBytes) {}
+
+    private static final class Removed {
+
+        private int files;
+        private long bytes;
+
+        /**
+         * Removes a file, unless it was already removed concurrently, for example by another build.
+         */
+        void remove(final Path file) throws IOException {
+            try {
+                final long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    files++;
+                    bytes += size;
+                }
+            } catch (NoSuchFileException e) {
+                LOG.debug("File {} was removed concurrently", file);
+            }
+        }
+    }
+}
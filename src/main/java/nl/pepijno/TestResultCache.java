@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.SessionScoped;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Skips test mojos whose inputs did not change since their last successful execution and restores their reports
+ * instead. The inputs are the classes and test classes of the project, the artifacts on its classpath, the
+ * configuration of the mojo, the user properties and the project properties. The configuration is hashed as written,
+ * so the project properties cover the values it refers to, including ones set during the build such as the
+ * {@code argLine} of JaCoCo.
+ */
+@SessionScoped
+@Named
+public class TestResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TestResultCache.class);
+    private static final String FINGERPRINT_ENTRY = "fingerprint";
+    private static final String REPORTS_ENTRY_PREFIX = "reports/";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final BuildVariant buildVariant;
+
+    @Inject
+    public TestResultCache(final BuildVariant buildVariant) {
+        this.buildVariant = buildVariant;
+    }
+
+    boolean isTestExecution(final MojoExecution mojoExecution) {
+        return getReportsDirectoryName(mojoExecution) != null;
+    }
+
+    String fingerprint(final MavenSession session, final MavenProject project, final MojoExecution mojoExecution)
+            throws IOException {
+        final var digest = newDigest();
+        update(
+                digest,
+                mojoExecution.getGroupId() + ":" + mojoExecution.getArtifactId() + ":" + mojoExecution.getVersion()
+                        + ":" + mojoExecution.getGoal() + "@" + mojoExecution.getExecutionId());
+        update(digest, String.valueOf(mojoExecution.getConfiguration()));
+        update(digest, System.getProperty("java.version"));
+        for (var property : new TreeMap<>(session.getUserProperties()).entrySet()) {
+            update(digest, property.getKey() + "=" + property.getValue());
+        }
+        update(digest, "project properties");
+        for (var property : new TreeMap<>(project.getProperties()).entrySet()) {
+            update(digest, property.getKey() + "=" + property.getValue());
+        }
+        hashDirectory(digest, Path.of(project.getBuild().getOutputDirectory()));
+        hashDirectory(digest, Path.of(project.getBuild().getTestOutputDirectory()));
+
+        final var localRepository = Path.of(session.getLocalRepository().getBasedir());
+        for (Artifact artifact : project.getArtifacts()) {
+            final var file = artifact.getFile();
+            update(digest, artifact.getId());
+            if (file == null) {
+                continue;
+            }
+            final var path = file.toPath();
+            if (Files.isDirectory(path)) {
+                hashDirectory(digest, path);
+            } else if (path.startsWith(localRepository) && Files.isRegularFile(path)) {
+                update(
+                        digest,
+                        path + ":" + Files.size(path) + ":"
+                                + Files.getLastModifiedTime(path).toMillis());
+            } else if (Files.isRegularFile(path)) {
+                hashFile(digest, path);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    boolean restore(
+            final MavenSession session,
+            final MavenProject project,
+            final MojoExecution mojoExecution,
+            final String fingerprint) {
+        final var resultFile = Utils.getTestResultFile(session, project, buildVariant.getId(), mojoExecution);
+        if (!Files.isRegularFile(resultFile)) {
+            return false;
+        }
+        final var reportsDirectory = getReportsDirectory(project, mojoExecution);
+        try (var in = new ZipInputStream(Files.newInputStream(resultFile))) {
+            var entry = in.getNextEntry();
+            if (entry == null
+                    || !FINGERPRINT_ENTRY.equals(entry.getName())
+                    || !fingerprint.equals(new String(in.readAllBytes(), StandardCharsets.UTF_8))) {
+                LOG.debug("Test inputs of {} in project {} changed", mojoExecution.getExecutionId(), project);
+                return false;
+            }
+            while ((entry = in.getNextEntry()) != null) {
+                restoreEntry(in, entry, reportsDirectory);
+            }
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Could not restore test results for project {}", project);
+            LOG.debug(e.getMessage());
+            return false;
+        }
+    }
+
+    void save(
+            final MavenSession session,
+            final MavenProject project,
+            final MojoExecution mojoExecution,
+            final String fingerprint) {
+        final var reportsDirectory = getReportsDirectory(project, mojoExecution);
+        final var resultFile = Utils.getTestResultFile(session, project, buildVariant.getId(), mojoExecution);
+        try {
+            final var reports = listFiles(reportsDirectory);
+            if (reports.isEmpty()) {
+                LOG.debug("No test reports in {}, not caching test results", reportsDirectory);
+                Files.deleteIfExists(resultFile);
+                return;
+            }
+            Utils.writeAtomically(resultFile, stream -> {
+                final var out = new ZipOutputStream(stream);
+                out.putNextEntry(new ZipEntry(FINGERPRINT_ENTRY));
+                out.write(fingerprint.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+                for (var report : reports) {
+                    final var name =
+                            reportsDirectory.relativize(report).toString().replace('\\', '/');
+                    out.putNextEntry(new ZipEntry(REPORTS_ENTRY_PREFIX + name));
+                    Files.copy(report, out);
+                    out.closeEntry();
+                }
+                out.finish();
+            });
+            LOG.debug("Saved {} test reports of project {}", reports.size(), project);
+        } catch (IOException e) {
+            LOG.warn("Could not save test results for project {}", project);
+            LOG.debug(e.getMessage());
+        }
+    }
+
+    Path getReportsDirectory(final MavenProject project, final MojoExecution mojoExecution) {
+        return Path.of(project.getBuild().getDirectory()).resolve(getReportsDirectoryName(mojoExecution));
+    }
+
+    private static String getReportsDirectoryName(final MojoExecution mojoExecution) {
+        if ("maven-surefire-plugin".equals(mojoExecution.getArtifactId()) && "test".equals(mojoExecution.getGoal())) {
+            return "surefire-reports";
+        }
+        if ("maven-failsafe-plugin".equals(mojoExecution.getArtifactId())
+                && "integration-test".equals(mojoExecution.getGoal())) {
+            return "failsafe-reports";
+        }
+        return null;
+    }
+
+    private static void restoreEntry(final InputStream in, final ZipEntry entry, final Path reportsDirectory)
+            throws IOException {
+        if (entry.isDirectory() || !entry.getName().startsWith(REPORTS_ENTRY_PREFIX)) {
+            return;
+        }
+        final var target =
+                Utils.resolveEntry(reportsDirectory, entry.getName().substring(REPORTS_ENTRY_PREFIX.length()));
+        Files.createDirectories(target.getParent());
+        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<Path> listFiles(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private static void hashDirectory(final MessageDigest digest, final Path directory) throws IOException {
+        update(digest, directory.toString());
+        for (var file : listFiles(directory)) {
+            update(digest, directory.relativize(file).toString());
+            hashFile(digest, file);
+        }
+    }
+
+    private static void hashFile(final MessageDigest digest, final Path file) throws IOException {
+        final var buffer = new byte[BUFFER_SIZE];
+        try (var in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -18,16 +18,26 @@
  */
 package nl.pepijno;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.project.MavenProject;
 
 class Utils {
 
+    static final String CACHE_FILE_SUFFIX = ".files";
+    private static final String TEST_RESULT_FILE_SUFFIX = ".tests.zip";
+    private static final String OUTPUT_FILE_SUFFIX = ".outputs.zip";
+    private static final String STATS_FILE_SUFFIX = ".stats";
+
     private Utils() {}
 
     static <T> T getLast(List<T> list) {
@@ -44,8 +54,43 @@ class Utils {
 
     static Path getCacheFile(final MavenSession session, final MavenProject project) {
         var path = getLocation(session, project);
-        var profiles = getSortedProfilesAsString(session);
-        return path.resolve(getCacheFilenamePrefix(project) + "-" + profiles + ".files");
+        return path.resolve(getCacheFilenamePrefix(project) + CACHE_FILE_SUFFIX);
+    }
+
+    static Path getStatsFile(final MavenSession session, final MavenProject project) {
+        var path = getLocation(session, project);
+        return path.resolve(getCacheFilenamePrefix(project) + STATS_FILE_SUFFIX);
+    }
+
+    static Path getTestResultFile(
+            final MavenSession session,
+            final MavenProject project,
+            final String variantId,
+            final MojoExecution mojoExecution) {
+        var path = getLocation(session, project);
+        return path.resolve(getVariantFilenamePrefix(project, variantId) + "-" + mojoExecution.getExecutionId()
+                + TEST_RESULT_FILE_SUFFIX);
+    }
+
+    static Path getOutputFile(final MavenSession session, final MavenProject project, final String variantId) {
+        var path = getLocation(session, project);
+        return path.resolve(getVariantFilenamePrefix(project, variantId) + OUTPUT_FILE_SUFFIX);
+    }
+
+    static String getVariantFilenamePrefix(final MavenProject project, final String variantId) {
+        return getCacheFilenamePrefix(project) + "-" + variantId;
+    }
+
+    static boolean isCacheFile(final String filename) {
+        return filename.endsWith(CACHE_FILE_SUFFIX) || isVariantFile(filename);
+    }
+
+    static boolean isVariantFile(final String filename) {
+        return filename.endsWith(TEST_RESULT_FILE_SUFFIX) || filename.endsWith(OUTPUT_FILE_SUFFIX);
+    }
+
+    static boolean isStateFile(final String filename) {
+        return isCacheFile(filename) || filename.endsWith(STATS_FILE_SUFFIX);
     }
 
     static String getCacheFilenamePrefix(final MavenProject project) {
@@ -53,17 +98,44 @@ class Utils {
     }
 
     static Path getLocation(final MavenSession session, final MavenProject project) {
-        return getLocalRepository(session)
+        return getLocation(getLocalRepository(session), project);
+    }
+
+    static Path getLocation(final Path localRepository, final MavenProject project) {
+        return localRepository
                 .resolve(project.getGroupId().replace('.', '/'))
                 .resolve(project.getArtifactId())
                 .resolve(project.getVersion());
     }
 
-    private static Path getLocalRepository(final MavenSession session) {
-        return Path.of(session.getLocalRepository().getBasedir());
+    static void writeAtomically(final Path file, final Writer writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        final var temporaryFile =
+                Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+                writer.write(out);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
     }
 
-    private static String getSortedProfilesAsString(final MavenSession session) {
-        return session.getRequest().getActiveProfiles().stream().sorted().collect(Collectors.joining("-"));
+    static Path resolveEntry(final Path directory, final String name) throws IOException {
+        final var target = directory.resolve(name).normalize();
+        if (!target.startsWith(directory.normalize())) {
+            throw new IOException("Invalid entry " + name);
+        }
+        return target;
+    }
+
+    @FunctionalInterface
+    interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static Path getLocalRepository(final MavenSession session) {
+        return Path.of(session.getLocalRepository().getBasedir());
     }
 }
@@ -18,23 +18,32 @@
  */
 package nl.pepijno;
 
+import java.io.IOException;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
 
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.project.MavenProject;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -48,25 +57,141 @@ class BuildCheckControllerTest {
     private MavenSession session;
     private MavenProject project;
 
+    @TempDir
+    Path repository;
+
+    @TempDir
+    Path basedir;
+
     @Mock
     private LifecyclePhasesHelper lifecyclePhasesHelper;
 
-    @InjectMocks
+    @Mock
+    private Config config;
+
     private BuildCheckController buildCheckController;
+    private List<MojoExecution> mojoExecutions;
 
     @BeforeEach
     void setUp() {
         fileSystem = Jimfs.newFileSystem(Configuration.osX());
 
         var localRepository = mock(ArtifactRepository.class);
-        when(localRepository.getBasedir()).thenReturn(fileSystem.getPath("").toString());
+        when(localRepository.getBasedir()).thenReturn(repository.toString());
         project = mock(MavenProject.class);
         when(project.getGroupId()).thenReturn("group.id");
         when(project.getArtifactId()).thenReturn("artifact");
         when(project.getVersion()).thenReturn("version");
+        when(project.getBasedir()).thenReturn(basedir.toFile());
+        var projectDependencyGraph = mock(ProjectDependencyGraph.class);
+        when(projectDependencyGraph.getUpstreamProjects(project, false)).thenReturn(List.of());
+        when(projectDependencyGraph.getDownstreamProjects(project, false)).thenReturn(List.of());
 
         session = mock(MavenSession.class);
         when(session.getLocalRepository()).thenReturn(localRepository);
+        when(session.getCurrentProject()).thenReturn(project);
+        when(session.getProjectDependencyGraph()).thenReturn(projectDependencyGraph);
+
+        final var install = mock(MojoExecution.class);
+        when(install.getLifecyclePhase()).thenReturn("install");
+        mojoExecutions = List.of(install);
+        when(lifecyclePhasesHelper.resolveHighestLifecyclePhase(any())).thenReturn("install");
+        when(lifecyclePhasesHelper.isLaterPhaseThanClean("install")).thenReturn(true);
+        when(config.getMaxVariants()).thenReturn(1);
+        when(config.getStateCacheBytes()).thenReturn(ModuleStateCache.DEFAULT_MAX_BYTES);
+
+        buildCheckController = new BuildCheckController(
+                lifecyclePhasesHelper, new ProjectScanner(1), new ModuleStateCache(), new BuildVariant("key"), config);
+    }
+
+    @Test
+    void shouldRebuild_shouldReturnFalse_ifOnlyModificationTimeChangedWithHashPolicy() throws IOException {
+        buildWithHashPolicy();
+        write("src/main/java/A.java", "class A {}", System.currentTimeMillis() + 5000);
+
+        assertThat(buildCheckController.shouldRebuild(session, mojoExecutions)).isFalse();
+    }
+
+    @Test
+    void shouldRebuild_shouldReturnTrue_ifFileWasEditedDuringBuildWithHashPolicy() throws IOException {
+        buildWithHashPolicy();
+        write("src/main/java/B.java", "class B {}", 1000);
+        assertThat(buildCheckController.shouldRebuild(session, mojoExecutions)).isTrue();
+        write("src/main/java/A.java", "class A { int edited; }", System.currentTimeMillis() + 5000);
+        buildCheckController.save(session);
+
+        assertThat(buildCheckController.shouldRebuild(session, mojoExecutions)).isTrue();
+    }
+
+    @Test
+    void shouldRebuild_shouldKeepHashPolicy_whileNewerFilesHaveUnchangedContents()
+            throws IOException, InterruptedException {
+        when(config.isAdaptivePolicy()).thenReturn(true);
+        when(session.getProjectDependencyGraph().getDownstreamProjects(project, false))
+                .thenReturn(List.of(mock(MavenProject.class)));
+        final var statsFile = Utils.getStatsFile(session, project);
+        write("pom.xml", "<project/>", 1000);
+        write("src/main/java/A.java", "class A {}", 1000);
+        for (var build = 0; build < CheckPolicy.MIN_CHECKS; build++) {
+            if (build > 0) {
+                touch("src/main/java/A.java");
+            }
+            assertThat(buildCheckController.shouldRebuild(session, mojoExecutions))
+                    .isTrue();
+            buildCheckController.save(session);
+            buildCheckController.recordBuild(session, 10_000_000_000L);
+        }
+        assertThat(CheckPolicy.decide(ModuleStats.read(statsFile), true)).isEqualTo(CheckPolicy.HASH);
+
+        for (var touch = 0; touch < 5; touch++) {
+            final var spuriousRate = ModuleStats.read(statsFile).getSpuriousRate();
+            touch("src/main/java/A.java");
+
+            assertThat(buildCheckController.shouldRebuild(session, mojoExecutions))
+                    .isFalse();
+            final var stats = ModuleStats.read(statsFile);
+            assertThat(stats.getSpuriousRate()).isGreaterThan(spuriousRate);
+            assertThat(CheckPolicy.decide(stats, true)).isEqualTo(CheckPolicy.HASH);
+        }
+    }
+
+    @Test
+    void getTimings_shouldSumTimeOfEveryPhase() {
+        buildCheckController.recordPhase("test", 3_000_000);
+        buildCheckController.recordPhase("compile", 1_000_000);
+        buildCheckController.recordPhase("compile", 2_000_000);
+
+        assertThat(buildCheckController.getTimings())
+                .containsEntry("phaseMillis.compile", 3L)
+                .containsEntry("phaseMillis.test", 3L);
+    }
+
+    /**
+     * Builds and saves the project for the first time, with statistics which make the adaptive policy check it by
+     * the hash of its contents.
+     */
+    private void buildWithHashPolicy() throws IOException {
+        when(config.isAdaptivePolicy()).thenReturn(true);
+        new ModuleStats(5, 10_000_000_000L, 5, 100, 0.5, 1000, 0.5, 0).write(Utils.getStatsFile(session, project));
+        write("pom.xml", "<project/>", 1000);
+        write("src/main/java/A.java", "class A {}", 1000);
+        assertThat(buildCheckController.shouldRebuild(session, mojoExecutions)).isTrue();
+        buildCheckController.save(session);
+    }
+
+    /**
+     * Modifies a file without changing its contents, after the last save and before the next build starts.
+     */
+    private void touch(final String path) throws IOException, InterruptedException {
+        Thread.sleep(5);
+        write(path, Files.readString(basedir.resolve(path)), System.currentTimeMillis());
+    }
+
+    private void write(final String path, final String contents, final long modified) throws IOException {
+        final var file = basedir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, contents);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
     }
 
     //    @Test
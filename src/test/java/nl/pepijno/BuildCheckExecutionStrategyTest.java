@@ -18,4 +18,190 @@
  */
 package nl.pepijno;
 
-class BuildCheckExecutionStrategyTest {}
+import java.util.List;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionRunner;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BuildCheckExecutionStrategyTest {
+
+    @Mock
+    private BuildCheckController buildCheckController;
+
+    @Mock
+    private TestResultCache testResultCache;
+
+    @Mock
+    private OutputCache outputCache;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private MavenSession session;
+
+    @Mock
+    private MavenProject project;
+
+    @Mock
+    private MojoExecutionRunner mojoExecutionRunner;
+
+    private BuildCheckExecutionStrategy strategy;
+    private MojoExecution clean;
+    private MojoExecution compile;
+    private MojoExecution install;
+
+    @BeforeEach
+    void setUp() {
+        final var defaultLifecycles = LifecyclesTestUtils.createDefaultLifecycles();
+        final var cleanLifecycle = defaultLifecycles.getLifeCycles().stream()
+                .filter(lifecycle -> lifecycle.getId().equals("clean"))
+                .findFirst()
+                .orElseThrow();
+        strategy = new BuildCheckExecutionStrategy(
+                new LifecyclePhasesHelper(defaultLifecycles, cleanLifecycle),
+                buildCheckController,
+                testResultCache,
+                outputCache,
+                config);
+
+        when(session.getCurrentProject()).thenReturn(project);
+        when(config.isBuildCheckEnabled()).thenReturn(true);
+        when(config.getMaxVariants()).thenReturn(1);
+        when(buildCheckController.isCurrentVariant(session)).thenReturn(true);
+        clean = mockedMojoExecution("clean");
+        compile = mockedMojoExecution("compile");
+        install = mockedMojoExecution("install");
+    }
+
+    @Test
+    void execute_shouldRunMojos_ifProjectShouldBeRebuilt() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(compile, install);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(true);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(mojoExecutionRunner).run(compile);
+        verify(mojoExecutionRunner).run(install);
+        verify(buildCheckController).save(session);
+    }
+
+    @Test
+    void execute_shouldSaveOnce_afterLastInstallMojo() throws LifecycleExecutionException {
+        final var installSignatures = mockedMojoExecution("install");
+        final var mojoExecutions = List.of(compile, install, installSignatures);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(true);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        final var inOrder = inOrder(mojoExecutionRunner, buildCheckController);
+        inOrder.verify(mojoExecutionRunner).run(installSignatures);
+        inOrder.verify(buildCheckController).save(session);
+        verify(buildCheckController, times(1)).save(session);
+    }
+
+    @Test
+    void execute_shouldSkipMojos_ifProjectIsUpToDate() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(compile, install);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(false);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(mojoExecutionRunner, never()).run(any());
+    }
+
+    @Test
+    void execute_shouldRemoveCacheFileAndRebuild_ifCleanIsPresent() throws LifecycleExecutionException {
+        strategy.execute(List.of(clean, compile, install), session, mojoExecutionRunner);
+
+        verify(buildCheckController).removeCacheFile(session, project);
+        verify(buildCheckController, never()).shouldRebuild(any(), any());
+        verify(buildCheckController).takeSnapshot(session);
+        verify(mojoExecutionRunner).run(clean);
+        verify(mojoExecutionRunner).run(compile);
+    }
+
+    @Test
+    void execute_shouldRestoreOutputs_ifCleanIsPresentAndProjectIsUpToDate() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(clean, compile, install);
+        when(config.isCleanRestoreEnabled()).thenReturn(true);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(false);
+        when(outputCache.restore(session, project)).thenReturn(true);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(buildCheckController, never()).removeCacheFile(any(), any());
+        verify(mojoExecutionRunner).run(clean);
+        verify(mojoExecutionRunner, never()).run(compile);
+    }
+
+    @Test
+    void execute_shouldRebuild_ifOutputsCannotBeRestored() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(clean, compile, install);
+        when(config.isCleanRestoreEnabled()).thenReturn(true);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(false);
+        when(outputCache.restore(session, project)).thenReturn(false);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(buildCheckController).takeSnapshot(session);
+        verify(mojoExecutionRunner).run(compile);
+        verify(outputCache).save(session, project);
+    }
+
+    @Test
+    void execute_shouldRestoreAndInstallOutputs_ifOtherVariantIsCurrent() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(compile, install);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(false);
+        when(buildCheckController.isCurrentVariant(session)).thenReturn(false);
+        when(outputCache.restore(session, project)).thenReturn(true);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(mojoExecutionRunner, never()).run(compile);
+        verify(mojoExecutionRunner).run(install);
+        verify(buildCheckController).markCurrentVariant(session);
+        verify(buildCheckController, never()).save(session);
+    }
+
+    @Test
+    void execute_shouldRebuild_ifOutputsOfOtherVariantCannotBeRestored() throws LifecycleExecutionException {
+        final var mojoExecutions = List.of(compile, install);
+        when(buildCheckController.shouldRebuild(session, mojoExecutions)).thenReturn(false);
+        when(buildCheckController.isCurrentVariant(session)).thenReturn(false);
+        when(outputCache.restore(session, project)).thenReturn(false);
+
+        strategy.execute(mojoExecutions, session, mojoExecutionRunner);
+
+        verify(mojoExecutionRunner).run(compile);
+        verify(buildCheckController).save(session);
+    }
+
+    private static MojoExecution mockedMojoExecution(final String phase) {
+        final var mojoExecution = mock(MojoExecution.class);
+        when(mojoExecution.getLifecyclePhase()).thenReturn(phase);
+        when(mojoExecution.getSource()).thenReturn(MojoExecution.Source.LIFECYCLE);
+        when(mojoExecution.toString()).thenReturn(phase);
+        return mojoExecution;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildVariantTest {
+
+    private Properties userProperties;
+
+    @BeforeEach
+    void setUp() {
+        userProperties = new Properties();
+        userProperties.setProperty("skipTests", "true");
+        userProperties.setProperty("build.check.enabled", "true");
+    }
+
+    @Test
+    void createKey_shouldContainSortedProfilesAndJavaVersion() {
+        assertThat(BuildVariant.createKey(List.of("fast", "dev"), userProperties, null, "17.0.9"))
+                .isEqualTo("profiles=dev,fast;properties=;java=17.0.9");
+    }
+
+    @Test
+    void createKey_shouldContainSortedRelevantProperties() {
+        userProperties.setProperty("a", "b");
+
+        assertThat(BuildVariant.createKey(List.of(), userProperties, List.of("skipTests", "a"), "17"))
+                .isEqualTo("profiles=;properties=a=b,skipTests=true;java=17");
+    }
+
+    @Test
+    void createKey_shouldOnlyContainRelevantProperties_ifConfigured() {
+        assertThat(BuildVariant.createKey(List.of(), userProperties, List.of("build.check.enabled"), "17"))
+                .isEqualTo("profiles=;properties=build.check.enabled=true;java=17");
+    }
+
+    @Test
+    void getId_shouldBeSameForSameKey_andDifferForOtherKey() {
+        assertThat(new BuildVariant("a").getId())
+                .hasSize(16)
+                .isEqualTo(new BuildVariant("a").getId())
+                .isNotEqualTo(new BuildVariant("b").getId());
+    }
+}
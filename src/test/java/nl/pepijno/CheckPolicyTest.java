@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckPolicyTest {
+
+    @Test
+    void decide_shouldCheck_ifTooFewChecksAreRecorded() {
+        final var stats = new ModuleStats(5, 1000, 2, 5000, 0.0, 0, 0.0, 0);
+
+        assertThat(CheckPolicy.decide(stats, false)).isEqualTo(CheckPolicy.CHECK);
+    }
+
+    @Test
+    void decide_shouldAlwaysBuild_ifCheckCostsMoreThanItSaves() {
+        final var stats = new ModuleStats(5, 1000, 5, 500, 0.2, 0, 0.0, 0);
+
+        assertThat(CheckPolicy.decide(stats, false)).isEqualTo(CheckPolicy.ALWAYS_BUILD);
+    }
+
+    @Test
+    void decide_shouldCheck_ifProjectHasDownstreamProjects() {
+        final var stats = new ModuleStats(5, 1000, 5, 500, 0.2, 0, 0.0, 0);
+
+        assertThat(CheckPolicy.decide(stats, true)).isEqualTo(CheckPolicy.CHECK);
+    }
+
+    @Test
+    void decide_shouldCheckAgain_afterRecheckInterval() {
+        final var stats = new ModuleStats(5, 1000, 5, 500, 0.2, 0, 0.0, CheckPolicy.RECHECK_INTERVAL);
+
+        assertThat(CheckPolicy.decide(stats, false)).isEqualTo(CheckPolicy.CHECK);
+    }
+
+    @Test
+    void decide_shouldHash_ifUnchangedContentsCauseCostlyBuilds() {
+        final var stats = new ModuleStats(5, 10_000, 5, 100, 0.5, 1000, 0.5, 0);
+
+        assertThat(CheckPolicy.decide(stats, true)).isEqualTo(CheckPolicy.HASH);
+    }
+
+    @Test
+    void decide_shouldCheck_ifHashingCostsMoreThanItSaves() {
+        final var stats = new ModuleStats(5, 10_000, 5, 100, 0.5, 1000, 0.05, 0);
+
+        assertThat(CheckPolicy.decide(stats, true)).isEqualTo(CheckPolicy.CHECK);
+    }
+
+    @Test
+    void isHashedOnSave_shouldReturnTrue_whileCollectingFirstChecks() {
+        final var stats = new ModuleStats(1, 1000, 1, 100, 0.0, 0, 0.0, 0);
+
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.CHECK, stats)).isTrue();
+    }
+
+    @Test
+    void isHashedOnSave_shouldOnlyReturnTrue_forHashPolicy_afterFirstChecks() {
+        final var stats = new ModuleStats(5, 1000, 5, 100, 0.5, 100, 0.0, 0);
+
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.CHECK, stats)).isFalse();
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.HASH, stats)).isTrue();
+    }
+
+    @Test
+    void isHashedOnSave_shouldReturnTrue_forTwoConsecutiveBuildsEveryRecheckInterval() {
+        final var first = new ModuleStats(CheckPolicy.RECHECK_INTERVAL, 1000, 5, 100, 0.5, 100, 0.0, 0);
+        final var second = new ModuleStats(CheckPolicy.RECHECK_INTERVAL + 1, 1000, 5, 100, 0.5, 100, 0.0, 0);
+        final var third = new ModuleStats(CheckPolicy.RECHECK_INTERVAL + 2, 1000, 5, 100, 0.5, 100, 0.0, 0);
+
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.CHECK, first)).isTrue();
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.CHECK, second)).isTrue();
+        assertThat(CheckPolicy.isHashedOnSave(CheckPolicy.CHECK, third)).isFalse();
+    }
+}
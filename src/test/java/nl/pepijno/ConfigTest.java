@@ -19,6 +19,7 @@
 package nl.pepijno;
 
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.execution.MavenSession;
 import org.junit.jupiter.api.BeforeEach;
@@ -70,4 +71,92 @@ class ConfigTest {
     void isBuildCheckEnabled_shouldReturnFalse_ifCheckNotPresentInUserPropertiesAndSystemProperties() {
         assertThat(config.isBuildCheckEnabled()).isFalse();
     }
+
+    @Test
+    void isListOnly_shouldReturnFalse_ifNotPresent() {
+        assertThat(config.isListOnly()).isFalse();
+    }
+
+    @Test
+    void isListOnly_shouldReturnTrue_ifPresentInUserProperties() {
+        userProperties.setProperty("build.check.listOnly", "true");
+        assertThat(config.isListOnly()).isTrue();
+    }
+
+    @Test
+    void getListFormat_shouldDefaultToProjectList() {
+        assertThat(config.getListFormat()).isEqualTo("pl");
+    }
+
+    @Test
+    void getListFormat_shouldPreferUserPropertiesOverSystemProperties() {
+        userProperties.setProperty("build.check.listFormat", "json");
+        systemProperties.setProperty("build.check.listFormat", "pl");
+        assertThat(config.getListFormat()).isEqualTo("json");
+    }
+
+    @Test
+    void getListFile_shouldReturnNull_ifNotPresent() {
+        assertThat(config.getListFile()).isNull();
+    }
+
+    @Test
+    void getStateCacheBytes_shouldReturnDefault_ifNotPresent() {
+        assertThat(config.getStateCacheBytes()).isEqualTo(ModuleStateCache.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    void getStateCacheBytes_shouldConvertMegabytes() {
+        userProperties.setProperty("build.check.stateCacheSize", "2");
+        assertThat(config.getStateCacheBytes()).isEqualTo(2L * 1024 * 1024);
+    }
+
+    @Test
+    void getMaxVariants_shouldDefaultToOne() {
+        assertThat(config.getMaxVariants()).isEqualTo(1);
+    }
+
+    @Test
+    void getScanParallelism_shouldDefaultToAvailableProcessors() {
+        assertThat(config.getScanParallelism()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    void getScanParallelism_shouldBeAtLeastOne() {
+        userProperties.setProperty("build.check.scanParallelism", "0");
+        assertThat(config.getScanParallelism()).isEqualTo(1);
+    }
+
+    @Test
+    void isAdaptivePolicy_shouldDefaultToFalse() {
+        assertThat(config.isAdaptivePolicy()).isFalse();
+    }
+
+    @Test
+    void isAdaptivePolicy_shouldReturnTrue_ifPolicyIsAdaptive() {
+        userProperties.setProperty("build.check.policy", "adaptive");
+        assertThat(config.isAdaptivePolicy()).isTrue();
+    }
+
+    @Test
+    void getMaxStateBytes_shouldConvertMegabytes() {
+        userProperties.setProperty("build.check.maxStateSize", "3");
+        assertThat(config.getMaxStateBytes()).isEqualTo(3L * 1024 * 1024);
+    }
+
+    @Test
+    void getMaxStateAgeMillis_shouldDefaultToThirtyDays() {
+        assertThat(config.getMaxStateAgeMillis()).isEqualTo(TimeUnit.DAYS.toMillis(30));
+    }
+
+    @Test
+    void getVariantProperties_shouldReturnNull_ifNotPresent() {
+        assertThat(config.getVariantProperties()).isNull();
+    }
+
+    @Test
+    void getVariantProperties_shouldSplitNames() {
+        userProperties.setProperty("build.check.variantProperties", "skipTests, maven.test.skip,");
+        assertThat(config.getVariantProperties()).containsExactly("skipTests", "maven.test.skip");
+    }
 }
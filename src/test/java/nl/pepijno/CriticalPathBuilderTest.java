@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.lifecycle.internal.LifecycleModuleBuilder;
+import org.apache.maven.lifecycle.internal.ProjectBuildList;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.ReactorBuildStatus;
+import org.apache.maven.lifecycle.internal.ReactorContext;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CriticalPathBuilderTest {
+
+    @Mock
+    private LifecycleModuleBuilder lifecycleModuleBuilder;
+
+    @Mock
+    private ReactorBuildCheck reactorBuildCheck;
+
+    @Mock
+    private BuildCheckController buildCheckController;
+
+    @Mock
+    private Config config;
+
+    @Mock
+    private MavenSession session;
+
+    @Mock
+    private ReactorContext reactorContext;
+
+    @Mock
+    private ReactorBuildStatus reactorBuildStatus;
+
+    @Mock
+    private ProjectDependencyGraph graph;
+
+    private CriticalPathBuilder criticalPathBuilder;
+    private final TaskSegment taskSegment = new TaskSegment(false, "install");
+    private MavenProject core;
+    private MavenProject small;
+    private MavenProject large;
+
+    @BeforeEach
+    void setUp() {
+        criticalPathBuilder = new CriticalPathBuilder(
+                lifecycleModuleBuilder, () -> reactorBuildCheck, () -> buildCheckController, () -> config);
+        core = mock(MavenProject.class);
+        small = mock(MavenProject.class);
+        large = mock(MavenProject.class);
+
+        final var request = mock(MavenExecutionRequest.class);
+        when(request.getDegreeOfConcurrency()).thenReturn(1);
+        when(session.getRequest()).thenReturn(request);
+        when(session.getProjects()).thenReturn(List.of(core, small, large));
+        when(session.getGoals()).thenReturn(List.of("install"));
+        when(session.getProjectDependencyGraph()).thenReturn(graph);
+        when(graph.getSortedProjects()).thenReturn(List.of(core, small, large));
+        when(reactorContext.getReactorBuildStatus()).thenReturn(reactorBuildStatus);
+        when(config.isBuildCheckEnabled()).thenReturn(true);
+        when(buildCheckController.loadStats(session, core)).thenReturn(ModuleStats.EMPTY);
+        when(buildCheckController.loadStats(session, small)).thenReturn(new ModuleStats(1, 1_000L));
+        when(buildCheckController.loadStats(session, large)).thenReturn(new ModuleStats(1, 9_000L));
+    }
+
+    @Test
+    void getCriticalPaths_shouldAddHeaviestDownstreamPath() {
+        when(graph.getDownstreamProjects(core, false)).thenReturn(List.of(small, large));
+
+        final var criticalPaths = CriticalPathBuilder.getCriticalPaths(
+                List.of(core, small, large), graph, Map.of(core, 1L, small, 2L, large, 5L));
+
+        assertThat(criticalPaths).containsOnly(entry(core, 6L), entry(small, 2L), entry(large, 5L));
+    }
+
+    @Test
+    void build_shouldDispatchUpToDateProjectsFirst_thenLongestPath() throws ExecutionException, InterruptedException {
+        when(reactorBuildCheck.check(session))
+                .thenReturn(Map.of(core, Verdict.UP_TO_DATE, small, Verdict.NEWER_SOURCE, large, Verdict.NEWER_SOURCE));
+
+        criticalPathBuilder.build(session, reactorContext, buildList(), List.of(taskSegment), reactorBuildStatus);
+
+        final var inOrder = inOrder(lifecycleModuleBuilder);
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(core), eq(taskSegment));
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(large), eq(taskSegment));
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(small), eq(taskSegment));
+        verify(buildCheckController).putVerdicts(any());
+    }
+
+    @Test
+    void build_shouldBuildDependentsAfterTheirUpstreamProjects() throws ExecutionException, InterruptedException {
+        when(config.isBuildCheckEnabled()).thenReturn(false);
+        when(graph.getUpstreamProjects(large, false)).thenReturn(List.of(small));
+        when(graph.getDownstreamProjects(small, false)).thenReturn(List.of(large));
+
+        criticalPathBuilder.build(session, reactorContext, buildList(), List.of(taskSegment), reactorBuildStatus);
+
+        final var inOrder = inOrder(lifecycleModuleBuilder);
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(small), eq(taskSegment));
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(large), eq(taskSegment));
+        inOrder.verify(lifecycleModuleBuilder).buildProject(any(), any(), any(), eq(core), eq(taskSegment));
+    }
+
+    private ProjectBuildList buildList() {
+        return new ProjectBuildList(List.of(
+                new ProjectSegment(core, taskSegment, session),
+                new ProjectSegment(small, taskSegment, session),
+                new ProjectSegment(large, taskSegment, session)));
+    }
+}
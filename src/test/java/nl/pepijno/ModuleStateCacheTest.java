@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModuleStateCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ModuleStateCache moduleStateCache;
+    private ModuleStateCache.Statistics statistics;
+    private AtomicInteger loads;
+    private Path cacheFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        moduleStateCache = new ModuleStateCache();
+        statistics = new ModuleStateCache.Statistics();
+        loads = new AtomicInteger();
+        cacheFile = tempDir.resolve("artifact-version.files");
+        Files.writeString(cacheFile, "content");
+    }
+
+    @Test
+    void get_shouldLoadOnce_ifCacheFileDidNotChange() throws IOException {
+        final var first = moduleStateCache.get(cacheFile, this::load, statistics);
+        assertThat(moduleStateCache.get(cacheFile, this::load, statistics)).isSameAs(first);
+
+        assertThat(loads).hasValue(1);
+        assertThat(statistics.getHits()).isEqualTo(1);
+        assertThat(statistics.getMisses()).isEqualTo(1);
+        assertThat(statistics.getHitRate()).isEqualTo(50);
+    }
+
+    @Test
+    void get_shouldLoadAgain_ifCacheFileChanged() throws IOException {
+        moduleStateCache.get(cacheFile, this::load, statistics);
+        Files.writeString(cacheFile, "other content");
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(0));
+        moduleStateCache.get(cacheFile, this::load, statistics);
+
+        assertThat(loads).hasValue(2);
+        assertThat(statistics.getHits()).isZero();
+    }
+
+    @Test
+    void get_shouldReturnPutFiles_withoutLoading() throws IOException {
+        final var state = state("c");
+        moduleStateCache.put(cacheFile, state);
+
+        assertThat(moduleStateCache.get(cacheFile, this::load, statistics)).isSameAs(state);
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void put_shouldReplacePreviousEntryOfSameFile() throws IOException {
+        moduleStateCache.put(cacheFile, state("c"));
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(0));
+        final var state = state("d", "e");
+        moduleStateCache.put(cacheFile, state);
+
+        assertThat(moduleStateCache.getTotalBytes()).isEqualTo(state.estimateBytes());
+    }
+
+    @Test
+    void setMaxBytes_shouldEvictEntries_ifTotalSizeExceedsMaximum() throws IOException {
+        moduleStateCache.put(cacheFile, state("c"));
+        moduleStateCache.setMaxBytes(0);
+
+        assertThat(moduleStateCache.getTotalBytes()).isZero();
+    }
+
+    private ModuleState load(final Path file) {
+        loads.incrementAndGet();
+        return state("a", "b");
+    }
+
+    private static ModuleState state(final String... files) {
+        return new ModuleState(
+                List.of(new ModuleState.Variant("id", "key", 0, 0, PathSet.of(files), DirectoryTimes.EMPTY)), "id");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ModuleStateTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_shouldReturnWrittenState() throws IOException {
+        final var file = tempDir.resolve("artifact-version.files");
+        ModuleState.EMPTY
+                .withVariant(variant("a", 1), 2)
+                .withVariant(variant("b", 2, "pom.xml", "src/main/java/A.java"), 2)
+                .write(file);
+
+        final var state = ModuleState.read(file);
+
+        assertThat(state.getVariants()).extracting(ModuleState.Variant::id).containsExactly("b", "a");
+        assertThat(state.isCurrent("b")).isTrue();
+        final var variant = state.getVariant("b");
+        assertThat(variant.key()).isEqualTo("key-b");
+        assertThat(variant.timestamp()).isEqualTo(2000);
+        assertThat(variant.lastUsed()).isEqualTo(2);
+        assertThat(variant.files().getString(1)).isEqualTo("src/main/java/A.java");
+        assertThat(variant.files().sameAs(PathSet.of("src/main/java/A.java", "pom.xml")))
+                .isTrue();
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void withVariant_shouldEvictLeastRecentlyUsedVariants() {
+        final var state = ModuleState.EMPTY
+                .withVariant(variant("a", 1), 2)
+                .withVariant(variant("b", 2), 2)
+                .withCurrent("a", 3)
+                .withVariant(variant("c", 4), 2);
+
+        assertThat(state.getVariants()).extracting(ModuleState.Variant::id).containsExactly("c", "a");
+        assertThat(state.isCurrent("c")).isTrue();
+    }
+
+    @Test
+    void withVariant_shouldReplaceVariantWithSameId() {
+        final var state = ModuleState.EMPTY.withVariant(variant("a", 1), 2).withVariant(variant("a", 2), 2);
+
+        assertThat(state.getVariants()).hasSize(1);
+        assertThat(state.getVariant("a").lastUsed()).isEqualTo(2);
+    }
+
+    @Test
+    void getVariant_shouldReturnNull_ifVariantIsMissing() {
+        assertThat(ModuleState.EMPTY.withVariant(variant("a", 1), 2).getVariant("b"))
+                .isNull();
+    }
+
+    @Test
+    void read_shouldThrowUnsupportedFormatException_forSerializedSet() throws IOException {
+        final var file = tempDir.resolve("artifact-version.files");
+        try (var out = new ObjectOutputStream(Files.newOutputStream(file))) {
+            out.writeObject(new HashSet<>(Set.of("/a/src/A.java")));
+        }
+
+        assertThatExceptionOfType(ModuleState.UnsupportedFormatException.class)
+                .isThrownBy(() -> ModuleState.read(file));
+    }
+
+    private static ModuleState.Variant variant(final String id, final long lastUsed, final String... files) {
+        return new ModuleState.Variant(
+                id, "key-" + id, lastUsed * 1000, lastUsed, PathSet.of(files), DirectoryTimes.EMPTY);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModuleStatsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_shouldReturnWrittenStats() throws IOException {
+        final var file = tempDir.resolve("artifact-version.stats");
+        ModuleStats.EMPTY.withBuild(100).withBuild(200).write(file);
+
+        final var stats = ModuleStats.read(file);
+
+        assertThat(stats.getBuilds()).isEqualTo(2);
+        assertThat(stats.getBuildNanos()).isEqualTo(150);
+    }
+
+    @Test
+    void withBuild_shouldWeighLaterBuildsByAQuarter() {
+        var stats = ModuleStats.EMPTY;
+        for (int i = 0; i < 4; i++) {
+            stats = stats.withBuild(1000);
+        }
+
+        assertThat(stats.withBuild(2000).getBuildNanos()).isEqualTo(1250);
+    }
+
+    @Test
+    void read_shouldReturnWrittenCheckAndHashStats() throws IOException {
+        final var file = tempDir.resolve("artifact-version.stats");
+        ModuleStats.EMPTY
+                .withCheck(100, true)
+                .withHash(50, true)
+                .withUncheckedBuild()
+                .write(file);
+
+        final var stats = ModuleStats.read(file);
+
+        assertThat(stats.getChecks()).isEqualTo(1);
+        assertThat(stats.getCheckNanos()).isEqualTo(100);
+        assertThat(stats.getHitRate()).isEqualTo(1.0);
+        assertThat(stats.getHashNanos()).isEqualTo(50);
+        assertThat(stats.getSpuriousRate()).isEqualTo(0.25);
+        assertThat(stats.getUncheckedBuilds()).isEqualTo(1);
+    }
+
+    @Test
+    void withCheck_shouldResetUncheckedBuilds() {
+        final var stats = ModuleStats.EMPTY.withUncheckedBuild().withUncheckedBuild();
+
+        assertThat(stats.withCheck(100, false).getUncheckedBuilds()).isZero();
+    }
+
+    @Test
+    void withHash_shouldKeepSpuriousRate_ifUnknown() {
+        final var stats = ModuleStats.EMPTY.withHash(100, true);
+
+        assertThat(stats.withHash(100, null).getSpuriousRate()).isEqualTo(stats.getSpuriousRate());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutputCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MavenProjectHelper projectHelper;
+    private OutputCache outputCache;
+    private MavenSession session;
+    private MavenProject project;
+    private Artifact artifact;
+    private Path target;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        projectHelper = mock(MavenProjectHelper.class);
+        outputCache = new OutputCache(projectHelper, new BuildVariant("key"));
+
+        target = tempDir.resolve("project/target");
+        write("classes/A.class");
+        write("test-classes/ATest.class");
+        write("artifact-version.jar");
+        write("artifact-version-tests.jar");
+
+        final var localRepository = mock(ArtifactRepository.class);
+        when(localRepository.getBasedir())
+                .thenReturn(tempDir.resolve("repository").toString());
+        final var request = mock(MavenExecutionRequest.class);
+        when(request.getActiveProfiles()).thenReturn(List.of());
+        session = mock(MavenSession.class);
+        when(session.getLocalRepository()).thenReturn(localRepository);
+        when(session.getRequest()).thenReturn(request);
+
+        final var build = new Build();
+        build.setDirectory(target.toString());
+        build.setOutputDirectory(target.resolve("classes").toString());
+        build.setTestOutputDirectory(target.resolve("test-classes").toString());
+        artifact = mock(Artifact.class);
+        when(artifact.getFile())
+                .thenReturn(target.resolve("artifact-version.jar").toFile());
+        final var testJar = mock(Artifact.class);
+        when(testJar.getFile())
+                .thenReturn(target.resolve("artifact-version-tests.jar").toFile());
+        when(testJar.getType()).thenReturn("test-jar");
+        when(testJar.getClassifier()).thenReturn("tests");
+        project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("group.id");
+        when(project.getArtifactId()).thenReturn("artifact");
+        when(project.getVersion()).thenReturn("version");
+        when(project.getBuild()).thenReturn(build);
+        when(project.getArtifact()).thenReturn(artifact);
+        when(project.getAttachedArtifacts()).thenReturn(List.of(testJar));
+    }
+
+    @Test
+    void restore_shouldRestoreSavedOutputs() throws IOException {
+        outputCache.save(session, project);
+        deleteDirectory(target);
+
+        assertThat(outputCache.restore(session, project)).isTrue();
+        assertThat(target.resolve("classes/A.class")).hasContent("classes/A.class");
+        assertThat(target.resolve("test-classes/ATest.class")).hasContent("test-classes/ATest.class");
+        assertThat(target.resolve("artifact-version.jar")).exists();
+        verify(artifact).setFile(target.resolve("artifact-version.jar").toFile());
+        verify(projectHelper)
+                .attachArtifact(
+                        project,
+                        "test-jar",
+                        "tests",
+                        target.resolve("artifact-version-tests.jar").toFile());
+    }
+
+    @Test
+    void restore_shouldRemoveClassesOfOtherVariant() throws IOException {
+        outputCache.save(session, project);
+        write("classes/OtherVariant.class");
+        write("test-classes/OtherVariantTest.class");
+
+        assertThat(outputCache.restore(session, project)).isTrue();
+        assertThat(target.resolve("classes/A.class")).exists();
+        assertThat(target.resolve("classes/OtherVariant.class")).doesNotExist();
+        assertThat(target.resolve("test-classes/OtherVariantTest.class")).doesNotExist();
+    }
+
+    @Test
+    void restore_shouldReturnFalse_ifNothingWasSaved() {
+        assertThat(outputCache.restore(session, project)).isFalse();
+    }
+
+    private void write(final String path) throws IOException {
+        final var file = target.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, path);
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathSetTest {
+
+    @Test
+    void of_shouldSortPathsInByteOrder() {
+        final var paths = PathSet.of("src/main/b", "pom.xml", "src/main/a", "README.md");
+
+        assertThat(paths.size()).isEqualTo(4);
+        assertThat(paths.getString(0)).isEqualTo("README.md");
+        assertThat(paths.getString(1)).isEqualTo("pom.xml");
+        assertThat(paths.getString(2)).isEqualTo("src/main/a");
+        assertThat(paths.getString(3)).isEqualTo("src/main/b");
+    }
+
+    @Test
+    void sameAs_shouldBeTrue_forSamePathsInDifferentOrder() {
+        assertThat(PathSet.of("a", "b", "c").sameAs(PathSet.of("c", "a", "b"))).isTrue();
+    }
+
+    @Test
+    void sameAs_shouldBeFalse_ifPathIsRenamed() {
+        assertThat(PathSet.of("a", "b", "c").sameAs(PathSet.of("a", "b", "d"))).isFalse();
+    }
+
+    @Test
+    void sameAs_shouldBeFalse_ifPathIsMovedToOtherDirectory() {
+        assertThat(PathSet.of("x/ab", "y/c").sameAs(PathSet.of("x/a", "y/bc"))).isFalse();
+    }
+
+    @Test
+    void sameAs_shouldCompareSetWithoutPaths() {
+        final var builder = new PathSet.Builder(false);
+        builder.add(bytes("b")).add(bytes("a"));
+        final var paths = builder.build();
+
+        assertThat(paths.hasPaths()).isFalse();
+        assertThat(paths.sameAs(PathSet.of("a", "b"))).isTrue();
+        assertThat(paths.sameAs(PathSet.of("a"))).isFalse();
+    }
+
+    @Test
+    void contains_shouldFindPaths() {
+        final var paths = PathSet.of("src/a", "src/b/c", "src/é");
+
+        assertThat(paths.contains(bytes("src/b/c"))).isTrue();
+        assertThat(paths.contains(bytes("src/é"))).isTrue();
+        assertThat(paths.contains(bytes("src/b"))).isFalse();
+        assertThat(paths.indexOf(bytes("src/aa"))).isEqualTo(-2);
+    }
+
+    @Test
+    void addAll_shouldCombineHashes() {
+        final var first = new PathSet.Builder(false).add(bytes("a"));
+        final var second = new PathSet.Builder(false).add(bytes("b"));
+
+        assertThat(first.addAll(second).build().sameAs(PathSet.of("b", "a"))).isTrue();
+    }
+
+    @Test
+    void addAll_shouldAppendPaths_whenRetainingPaths() {
+        final var first = new PathSet.Builder(true).add(bytes("a")).add(bytes("b"));
+        final var second = new PathSet.Builder(true).add(bytes("c")).add(bytes("d"));
+
+        final var builder = first.addAll(second);
+        final var paths = builder.build();
+
+        assertThat(builder.isSorted()).isTrue();
+        assertThat(paths.size()).isEqualTo(4);
+        assertThat(paths.getString(2)).isEqualTo("c");
+        assertThat(paths.sameAs(PathSet.of("a", "b", "c", "d"))).isTrue();
+    }
+
+    @Test
+    void addAll_shouldSortPaths_ifAppendedPathsAreOutOfOrder() {
+        final var first = new PathSet.Builder(true).add(bytes("c"));
+        final var second = new PathSet.Builder(true).add(bytes("a")).add(bytes("b"));
+
+        final var paths = first.addAll(second).build();
+
+        assertThat(paths.getString(0)).isEqualTo("a");
+        assertThat(paths.getString(2)).isEqualTo("c");
+    }
+
+    private static byte[] bytes(final String path) {
+        return path.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the sequential and the parallel walk of a large module. Only runs with {@code -Dbuild.check.benchmark},
+ * the number of files is set with {@code -Dbuild.check.benchmark.files} (default 100000).
+ */
+@EnabledIfSystemProperty(named = "build.check.benchmark", matches = "true")
+class ProjectScannerBenchmarkTest {
+
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path basedir;
+
+    @Test
+    void scan_shouldBeFaster_whenWalkingInParallel() throws IOException {
+        final int files = Integer.getInteger("build.check.benchmark.files", 100_000);
+        for (int i = 0; i < files; i++) {
+            final var file = basedir.resolve(
+                    "src/main/java/p" + i % 40 + "/q" + i / 40 % 25 + "/r" + i / 1000 % 10 + "/F" + i + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "");
+        }
+
+        final var sequentialScanner = new ProjectScanner(1);
+        final var parallelism = Runtime.getRuntime().availableProcessors();
+        final var parallelScanner = new ProjectScanner(parallelism);
+        try {
+            final var sequential = time(sequentialScanner);
+            final var parallel = time(parallelScanner);
+            System.out.printf(
+                    "Scanned %d files in %d ms sequentially and in %d ms with %d workers, speedup %.1fx%n",
+                    files, sequential / 1_000_000, parallel / 1_000_000, parallelism, (double) sequential / parallel);
+            final var expected = sequentialScanner.scan(basedir, false).files();
+            assertThat(parallelScanner.scan(basedir, false).files().sameAs(expected))
+                    .isTrue();
+        } finally {
+            parallelScanner.shutdown();
+        }
+    }
+
+    private long time(final ProjectScanner projectScanner) throws IOException {
+        projectScanner.scan(basedir, true);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            final var start = System.nanoTime();
+            projectScanner.scan(basedir, true);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
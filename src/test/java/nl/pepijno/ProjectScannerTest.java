@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectScannerTest {
+
+    @TempDir
+    Path basedir;
+
+    private ProjectScanner projectScanner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        projectScanner = new ProjectScanner(1);
+        write("pom.xml", 1000);
+        write(".gitignore", 5000);
+        write("target/classes/A.class", 5000);
+        write("src/main/java/A.java", 2000);
+        write("src/main/java/a/B.java", 3000);
+        write("src/test/.hidden", 1500);
+    }
+
+    @Test
+    void scan_shouldCollectSourceAndRootFiles() throws IOException {
+        final var scan = projectScanner.scan(basedir, true);
+
+        assertThat(scan.files().size()).isEqualTo(4);
+        assertThat(scan.files().getString(0)).isEqualTo("pom.xml");
+        assertThat(scan.files().getString(1)).isEqualTo("src/main/java/A.java");
+        assertThat(scan.files().getString(2)).isEqualTo("src/main/java/a/B.java");
+        assertThat(scan.files().getString(3)).isEqualTo("src/test/.hidden");
+    }
+
+    @Test
+    void scan_shouldReturnNewestModificationTimes() throws IOException {
+        final var scan = projectScanner.scan(basedir, false);
+
+        assertThat(scan.newestRoot()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(scan.newestSource()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(3000));
+    }
+
+    @Test
+    void scan_shouldReturnSameHash_withAndWithoutRetainingPaths() throws IOException {
+        assertThat(projectScanner
+                        .scan(basedir, false)
+                        .files()
+                        .sameAs(projectScanner.scan(basedir, true).files()))
+                .isTrue();
+    }
+
+    @Test
+    void scan_shouldReturnNoFiles_ifSourceDirectoryIsMissing(@TempDir final Path emptyDir) throws IOException {
+        final var scan = projectScanner.scan(emptyDir, true);
+
+        assertThat(scan.files().size()).isZero();
+        assertThat(scan.newestSource()).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void scan_shouldRecordDirectoryTimes_whenRetainingPaths() throws IOException {
+        setDirectoryTimes(500);
+
+        final var directories = projectScanner.scan(basedir, true).directories();
+
+        assertThat(directories.size()).isEqualTo(6);
+        assertThat(directories.getPaths().getString(0)).isEmpty();
+        assertThat(directories.getPaths().getString(1)).isEqualTo("src/");
+        assertThat(directories.getModified("src/main/java/a/".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void scan_shouldReuseSavedChildren_ifDirectoriesAreUnchanged() throws IOException {
+        setDirectoryTimes(500);
+        final var saved = projectScanner.scan(basedir, true);
+
+        final var scan = projectScanner.scan(basedir, true, variant(saved));
+
+        assertThat(scan.directoriesListed()).isZero();
+        assertThat(scan.directoriesReused()).isEqualTo(6);
+        assertThat(scan.files().sameAs(saved.files())).isTrue();
+        assertThat(scan.newestSource()).isEqualTo(saved.newestSource());
+    }
+
+    @Test
+    void scan_shouldListDirectory_ifItsTimeChanged() throws IOException {
+        setDirectoryTimes(500);
+        final var saved = projectScanner.scan(basedir, true);
+        write("src/main/java/a/C.java", 3000);
+        Files.setLastModifiedTime(basedir.resolve("src/main/java/a"), FileTime.fromMillis(4000));
+
+        final var scan = projectScanner.scan(basedir, true, variant(saved));
+
+        assertThat(scan.directoriesListed()).isEqualTo(1);
+        assertThat(scan.files().contains("src/main/java/a/C.java".getBytes(StandardCharsets.UTF_8)))
+                .isTrue();
+    }
+
+    @Test
+    void scan_shouldListDirectory_ifSavedChildIsGone() throws IOException {
+        setDirectoryTimes(500);
+        final var saved = projectScanner.scan(basedir, true);
+        Files.delete(basedir.resolve("src/main/java/A.java"));
+        setDirectoryTimes(500);
+
+        final var scan = projectScanner.scan(basedir, true, variant(saved));
+
+        assertThat(scan.directoriesListed()).isEqualTo(1);
+        assertThat(scan.files().size()).isEqualTo(3);
+    }
+
+    @Test
+    void scan_shouldListDirectory_ifItChangedShortlyBeforeSavedTimestamp() throws IOException {
+        setDirectoryTimes(500);
+        final var saved = projectScanner.scan(basedir, true);
+        final var variant = new ModuleState.Variant(
+                "id", "key", TimeUnit.MILLISECONDS.toNanos(1500), 0, saved.files(), saved.directories());
+
+        final var scan = projectScanner.scan(basedir, true, variant);
+
+        assertThat(scan.directoriesReused()).isZero();
+    }
+
+    @Test
+    void scan_shouldReturnSameFiles_whenWalkingInParallel() throws IOException {
+        final var parallelScanner = new ProjectScanner(4);
+        try {
+            final var sequential = projectScanner.scan(basedir, true);
+            final var parallel = parallelScanner.scan(basedir, true);
+
+            assertThat(parallel.files().getString(2)).isEqualTo("src/main/java/a/B.java");
+            assertThat(parallel.files().sameAs(sequential.files())).isTrue();
+            assertThat(parallel.directories().size())
+                    .isEqualTo(sequential.directories().size());
+            assertThat(parallel.newestSource()).isEqualTo(sequential.newestSource());
+        } finally {
+            parallelScanner.shutdown();
+        }
+    }
+
+    @Test
+    void check_shouldNotStop_ifFilesAreUnchanged() throws IOException {
+        final var saved = projectScanner.scan(basedir, true);
+
+        final var scan = projectScanner.check(basedir, variant(saved));
+
+        assertThat(scan.stopped()).isFalse();
+        assertThat(scan.files().sameAs(saved.files())).isTrue();
+    }
+
+    @Test
+    void check_shouldStop_ifUnknownFileIsFound() throws IOException {
+        final var saved = projectScanner.scan(basedir, true);
+        write("src/main/java/a/C.java", 3000);
+
+        assertThat(projectScanner.check(basedir, variant(saved)).stopped()).isTrue();
+    }
+
+    @Test
+    void check_shouldStop_ifNewerFileIsFound() throws IOException {
+        final var saved = projectScanner.scan(basedir, true);
+        write("src/main/java/A.java", 20_000);
+
+        final var scan = projectScanner.check(basedir, variant(saved));
+
+        assertThat(scan.stopped()).isTrue();
+        assertThat(scan.newestSource()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20_000));
+    }
+
+    @Test
+    void isUnchanged_shouldReturnTrue_ifNoDirectoryChanged() throws IOException {
+        final var scan = projectScanner.scan(basedir, true);
+        write("src/main/java/A.java", 9000);
+
+        assertThat(projectScanner.isUnchanged(basedir, scan.directories())).isTrue();
+    }
+
+    @Test
+    void isUnchanged_shouldReturnFalse_ifFileWasAdded() throws IOException {
+        setDirectoryTimes(500);
+        final var scan = projectScanner.scan(basedir, true);
+        write("src/main/java/a/C.java", 3000);
+
+        assertThat(projectScanner.isUnchanged(basedir, scan.directories())).isFalse();
+    }
+
+    @Test
+    void hashContents_shouldOnlyChange_ifContentsChange() throws IOException {
+        final var files = projectScanner.scan(basedir, true).files();
+        final var hash = ProjectScanner.hashContents(basedir, files).hash();
+
+        write("src/main/java/A.java", 9000);
+        assertThat(ProjectScanner.hashContents(basedir, files).hash()).isEqualTo(hash);
+
+        Files.writeString(basedir.resolve("src/main/java/A.java"), "changed");
+        assertThat(ProjectScanner.hashContents(basedir, files).hash()).isNotEqualTo(hash);
+    }
+
+    @Test
+    void hashContents_shouldCountBytesRead() throws IOException {
+        final var files = projectScanner.scan(basedir, true).files();
+
+        final var contentHash = ProjectScanner.hashContents(basedir, files);
+
+        assertThat(contentHash.bytes())
+                .isEqualTo("pom.xml".length()
+                        + "src/main/java/A.java".length()
+                        + "src/main/java/a/B.java".length()
+                        + "src/test/.hidden".length());
+    }
+
+    @Test
+    void hashContents_shouldReturnEmptyHash_ifFileIsModifiedAfterGivenTime() throws IOException {
+        final var files = projectScanner.scan(basedir, true).files();
+
+        assertThat(ProjectScanner.hashContents(basedir, files, TimeUnit.MILLISECONDS.toNanos(2500))
+                        .hash())
+                .isEmpty();
+    }
+
+    private static ModuleState.Variant variant(final ProjectScanner.Scan scan) {
+        return new ModuleState.Variant(
+                "id", "key", TimeUnit.MILLISECONDS.toNanos(10_000), 0, scan.files(), scan.directories());
+    }
+
+    private void setDirectoryTimes(final long modified) throws IOException {
+        for (var directory : new String[] {"src/main/java/a", "src/main/java", "src/main", "src/test", "src", ""}) {
+            Files.setLastModifiedTime(basedir.resolve(directory), FileTime.fromMillis(modified));
+        }
+    }
+
+    private void write(final String path, final long modified) throws IOException {
+        final var file = basedir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, path);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.util.List;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReactorBuildCheckTest {
+
+    @Mock
+    private BuildCheckController buildCheckController;
+
+    @InjectMocks
+    private ReactorBuildCheck reactorBuildCheck;
+
+    private MavenSession session;
+    private MavenProject core;
+    private MavenProject api;
+    private MavenProject app;
+
+    @BeforeEach
+    void setUp() {
+        core = mock(MavenProject.class);
+        api = mock(MavenProject.class);
+        app = mock(MavenProject.class);
+
+        final var graph = mock(ProjectDependencyGraph.class);
+        when(graph.getSortedProjects()).thenReturn(List.of(core, api, app));
+        when(graph.getDownstreamProjects(core, true)).thenReturn(List.of(app));
+        when(graph.getDownstreamProjects(api, true)).thenReturn(List.of());
+        when(graph.getDownstreamProjects(app, true)).thenReturn(List.of());
+
+        session = mock(MavenSession.class);
+        when(session.getProjectDependencyGraph()).thenReturn(graph);
+    }
+
+    @Test
+    void check_shouldReturnUpToDate_ifNoProjectChanged() throws InterruptedException {
+        when(buildCheckController.check(session, core)).thenReturn(Verdict.UP_TO_DATE);
+        when(buildCheckController.check(session, api)).thenReturn(Verdict.UP_TO_DATE);
+        when(buildCheckController.check(session, app)).thenReturn(Verdict.UP_TO_DATE);
+
+        assertThat(ReactorBuildCheck.getRebuilt(reactorBuildCheck.check(session)))
+                .isEmpty();
+    }
+
+    @Test
+    void check_shouldRebuildDownstreamProjects_ifUpstreamProjectChanged() throws InterruptedException {
+        when(buildCheckController.check(session, core)).thenReturn(Verdict.NEWER_SOURCE);
+        when(buildCheckController.check(session, api)).thenReturn(Verdict.UP_TO_DATE);
+        when(buildCheckController.check(session, app)).thenReturn(Verdict.UP_TO_DATE);
+
+        assertThat(reactorBuildCheck.check(session))
+                .containsExactly(
+                        entry(core, Verdict.NEWER_SOURCE),
+                        entry(api, Verdict.UP_TO_DATE),
+                        entry(app, Verdict.UPSTREAM_REBUILT));
+    }
+
+    @Test
+    void check_shouldKeepOwnVerdict_ifDownstreamProjectChangedItself() throws InterruptedException {
+        when(buildCheckController.check(session, core)).thenReturn(Verdict.NEWER_SOURCE);
+        when(buildCheckController.check(session, api)).thenReturn(Verdict.UP_TO_DATE);
+        when(buildCheckController.check(session, app)).thenReturn(Verdict.NO_CACHE);
+
+        assertThat(reactorBuildCheck.check(session)).containsEntry(app, Verdict.NO_CACHE);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RebuildListTest {
+
+    private Map<MavenProject, Verdict> verdicts;
+
+    @BeforeEach
+    void setUp() {
+        verdicts = new LinkedHashMap<>();
+        verdicts.put(mockedProject("core"), Verdict.NEWER_SOURCE);
+        verdicts.put(mockedProject("api"), Verdict.UP_TO_DATE);
+        verdicts.put(mockedProject("app"), Verdict.UPSTREAM_REBUILT);
+    }
+
+    @Test
+    void toProjectList_shouldJoinRebuiltProjectsInReactorOrder() {
+        assertThat(RebuildList.toProjectList(verdicts)).isEqualTo("group.id:core,group.id:app");
+    }
+
+    @Test
+    void toProjectList_shouldReturnEmptyString_ifNothingIsRebuilt() {
+        assertThat(RebuildList.toProjectList(Map.of(mockedProject("api"), Verdict.UP_TO_DATE)))
+                .isEmpty();
+    }
+
+    @Test
+    void toJson_shouldContainRebuiltProjectsWithVerdict() {
+        assertThat(RebuildList.toJson(verdicts))
+                .isEqualTo("{\"modules\":["
+                        + "{\"id\":\"group.id:core\",\"basedir\":\"/work/core\",\"verdict\":\"NEWER_SOURCE\"},"
+                        + "{\"id\":\"group.id:app\",\"basedir\":\"/work/app\",\"verdict\":\"UPSTREAM_REBUILT\"}]}");
+    }
+
+    @Test
+    void format_shouldThrowException_forUnsupportedFormat() {
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> RebuildList.format("xml", verdicts));
+    }
+
+    private static MavenProject mockedProject(final String artifactId) {
+        final var project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("group.id");
+        when(project.getArtifactId()).thenReturn(artifactId);
+        when(project.getBasedir()).thenReturn(new File("/work/" + artifactId));
+        return project;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StateCollectorTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(100);
+
+    @TempDir
+    Path repository;
+
+    @Mock
+    private Config config;
+
+    private StateCollector stateCollector;
+    private MavenProject project;
+    private Path location;
+
+    @BeforeEach
+    void setUp() {
+        when(config.getMaxStateBytes()).thenReturn(1024L * 1024);
+        when(config.getMaxStateAgeMillis()).thenReturn(TimeUnit.DAYS.toMillis(30));
+        stateCollector = new StateCollector(config);
+        project = project("core", "2.0");
+        location = repository.resolve("nl/pepijno/core/2.0");
+    }
+
+    @Test
+    void collect_shouldIndexStateOfReactor() throws IOException {
+        write(location.resolve("core-2.0.files"), 10);
+        write(location.resolve("core-2.0.stats"), 5);
+
+        final var result = collect(project);
+
+        assertThat(result.tracked()).isEqualTo(1);
+        assertThat(StateCollector.readIndex(repository.resolve(StateCollector.INDEX_FILE)))
+                .containsExactly(Map.entry("nl/pepijno/core/2.0/core-2.0", new StateCollector.Entry(NOW, 15)));
+    }
+
+    @Test
+    void collect_shouldKeepAndTrackStateOfOtherVersions() throws IOException {
+        final var oldLocation = repository.resolve("nl/pepijno/core/1.0");
+        write(oldLocation.resolve("core-1.0.files"), 10);
+        Files.setLastModifiedTime(oldLocation.resolve("core-1.0.files"), FileTime.fromMillis(NOW - 1000));
+
+        final var result = collect(project);
+
+        assertThat(result.removed()).isZero();
+        assertThat(oldLocation.resolve("core-1.0.files")).exists();
+        assertThat(StateCollector.readIndex(repository.resolve(StateCollector.INDEX_FILE)))
+                .containsEntry("nl/pepijno/core/1.0/core-1.0", new StateCollector.Entry(NOW - 1000, 10));
+    }
+
+    @Test
+    void collect_shouldRemoveStateOfOtherVersions_ifOlderThanMaxAge() throws IOException {
+        final var oldLocation = repository.resolve("nl/pepijno/core/1.0");
+        write(oldLocation.resolve("core-1.0.files"), 10);
+        write(oldLocation.resolve("core-1.0.stats"), 10);
+        write(oldLocation.resolve("core-1.0.jar"), 10);
+        for (var name : new String[] {"core-1.0.files", "core-1.0.stats"}) {
+            Files.setLastModifiedTime(oldLocation.resolve(name), FileTime.fromMillis(NOW - TimeUnit.DAYS.toMillis(31)));
+        }
+
+        final var result = collect(project);
+
+        assertThat(result.removed()).isEqualTo(2);
+        assertThat(oldLocation.resolve("core-1.0.files")).doesNotExist();
+        assertThat(oldLocation.resolve("core-1.0.stats")).doesNotExist();
+        assertThat(oldLocation.resolve("core-1.0.jar")).exists();
+    }
+
+    @Test
+    void collect_shouldRememberOtherVersionsWithoutState() throws IOException {
+        Files.createDirectories(repository.resolve("nl/pepijno/core/1.0"));
+
+        final var result = collect(project);
+
+        assertThat(result.tracked()).isZero();
+        assertThat(StateCollector.readIndex(repository.resolve(StateCollector.INDEX_FILE)))
+                .containsEntry("nl/pepijno/core/1.0/core-1.0", new StateCollector.Entry(NOW, 0));
+    }
+
+    @Test
+    void collect_shouldStartAtAnotherProject_ifDeadlinePassed() throws IOException {
+        final var app = project("app", "1.0");
+        write(location.resolve("core-2.0.files"), 10);
+        write(repository.resolve("nl/pepijno/app/1.0/app-1.0.files"), 10);
+        final long deadline = System.nanoTime();
+
+        stateCollector.collect(repository, List.of(project, app), NOW, deadline);
+        stateCollector.collect(repository, List.of(project, app), NOW + 1, deadline);
+
+        assertThat(StateCollector.readIndex(repository.resolve(StateCollector.INDEX_FILE)))
+                .containsOnlyKeys("nl/pepijno/core/2.0/core-2.0", "nl/pepijno/app/1.0/app-1.0");
+    }
+
+    @Test
+    void collect_shouldStartNewIndex_ifIndexCannotBeRead() throws IOException {
+        write(location.resolve("core-2.0.files"), 10);
+        final var indexFile = repository.resolve(StateCollector.INDEX_FILE);
+        write(indexFile, 3);
+
+        final var result = collect(project);
+
+        assertThat(result.tracked()).isEqualTo(1);
+        assertThat(StateCollector.readIndex(indexFile)).containsOnlyKeys("nl/pepijno/core/2.0/core-2.0");
+    }
+
+    @Test
+    void collect_shouldRemoveFilesOfUnknownVariants() throws IOException {
+        new ModuleState(List.of(variant("0123456789abcdef")), "0123456789abcdef")
+                .write(location.resolve("core-2.0.files"));
+        write(location.resolve("core-2.0-0123456789abcdef.outputs.zip"), 10);
+        write(location.resolve("core-2.0-fedcba9876543210.outputs.zip"), 10);
+        write(location.resolve("core-2.0-fedcba9876543210-default-test.tests.zip"), 10);
+
+        final var result = collect(project);
+
+        assertThat(result.removed()).isEqualTo(2);
+        assertThat(location.resolve("core-2.0-0123456789abcdef.outputs.zip")).exists();
+        assertThat(location.resolve("core-2.0-fedcba9876543210.outputs.zip")).doesNotExist();
+        assertThat(location.resolve("core-2.0-fedcba9876543210-default-test.tests.zip"))
+                .doesNotExist();
+    }
+
+    @Test
+    void collect_shouldRemoveStateOlderThanMaxAge() throws IOException {
+        final var other = repository.resolve("nl/pepijno/app/1.0");
+        write(other.resolve("app-1.0.files"), 10);
+        write(other.resolve("app-1.0.jar"), 10);
+        StateCollector.writeIndex(
+                repository.resolve(StateCollector.INDEX_FILE),
+                Map.of("nl/pepijno/app/1.0/app-1.0", new StateCollector.Entry(NOW - TimeUnit.DAYS.toMillis(31), 10)));
+
+        final var result = collect(project);
+
+        assertThat(result.removed()).isEqualTo(1);
+        assertThat(result.tracked()).isZero();
+        assertThat(other.resolve("app-1.0.files")).doesNotExist();
+        assertThat(other.resolve("app-1.0.jar")).exists();
+    }
+
+    @Test
+    void collect_shouldRemoveLeastRecentlyUsedState_ifTotalSizeExceedsMaximum() throws IOException {
+        when(config.getMaxStateBytes()).thenReturn(25L);
+        write(location.resolve("core-2.0.files"), 10);
+        final var older = repository.resolve("nl/pepijno/app/1.0");
+        final var newer = repository.resolve("nl/pepijno/web/1.0");
+        write(older.resolve("app-1.0.files"), 10);
+        write(newer.resolve("web-1.0.files"), 10);
+        StateCollector.writeIndex(
+                repository.resolve(StateCollector.INDEX_FILE),
+                Map.of(
+                        "nl/pepijno/app/1.0/app-1.0", new StateCollector.Entry(NOW - 2, 10),
+                        "nl/pepijno/web/1.0/web-1.0", new StateCollector.Entry(NOW - 1, 10)));
+
+        final var result = collect(project);
+
+        assertThat(result.trackedBytes()).isEqualTo(20);
+        assertThat(older.resolve("app-1.0.files")).doesNotExist();
+        assertThat(newer.resolve("web-1.0.files")).exists();
+        assertThat(location.resolve("core-2.0.files")).exists();
+    }
+
+    @Test
+    void collect_shouldKeepStateOfReactor_ifTotalSizeExceedsMaximum() throws IOException {
+        when(config.getMaxStateBytes()).thenReturn(1L);
+        write(location.resolve("core-2.0.files"), 10);
+
+        final var result = collect(project);
+
+        assertThat(result.removed()).isZero();
+        assertThat(location.resolve("core-2.0.files")).exists();
+    }
+
+    private StateCollector.Result collect(final MavenProject... projects) throws IOException {
+        final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        return stateCollector.collect(repository, List.of(projects), NOW, deadline);
+    }
+
+    private static ModuleState.Variant variant(final String id) {
+        return new ModuleState.Variant(id, "key", 0, 0, PathSet.EMPTY, DirectoryTimes.EMPTY);
+    }
+
+    private static MavenProject project(final String artifactId, final String version) {
+        final var project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("nl.pepijno");
+        when(project.getArtifactId()).thenReturn(artifactId);
+        when(project.getVersion()).thenReturn(version);
+        return project;
+    }
+
+    private static void write(final Path file, final int size) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package nl.pepijno;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestResultCache testResultCache;
+    private MavenSession session;
+    private MavenProject project;
+    private MojoExecution surefire;
+    private Path target;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        testResultCache = new TestResultCache(new BuildVariant("key"));
+        target = tempDir.resolve("project/target");
+        Files.createDirectories(target.resolve("classes"));
+        Files.createDirectories(target.resolve("test-classes"));
+        Files.writeString(target.resolve("classes/A.class"), "A");
+        Files.writeString(target.resolve("test-classes/ATest.class"), "ATest");
+
+        final var localRepository = mock(ArtifactRepository.class);
+        when(localRepository.getBasedir())
+                .thenReturn(tempDir.resolve("repository").toString());
+        final var request = mock(MavenExecutionRequest.class);
+        when(request.getActiveProfiles()).thenReturn(List.of());
+        session = mock(MavenSession.class);
+        when(session.getLocalRepository()).thenReturn(localRepository);
+        when(session.getRequest()).thenReturn(request);
+        when(session.getUserProperties()).thenReturn(new Properties());
+
+        final var build = new Build();
+        build.setDirectory(target.toString());
+        build.setOutputDirectory(target.resolve("classes").toString());
+        build.setTestOutputDirectory(target.resolve("test-classes").toString());
+        project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("group.id");
+        when(project.getArtifactId()).thenReturn("artifact");
+        when(project.getVersion()).thenReturn("version");
+        when(project.getBuild()).thenReturn(build);
+        when(project.getArtifacts()).thenReturn(Set.of());
+        when(project.getProperties()).thenReturn(new Properties());
+
+        surefire = mockedMojoExecution("maven-surefire-plugin", "test");
+    }
+
+    @Test
+    void isTestExecution_shouldBeTrue_forSurefireAndFailsafe() {
+        assertThat(testResultCache.isTestExecution(surefire)).isTrue();
+        assertThat(testResultCache.isTestExecution(mockedMojoExecution("maven-failsafe-plugin", "integration-test")))
+                .isTrue();
+        assertThat(testResultCache.isTestExecution(mockedMojoExecution("maven-failsafe-plugin", "verify")))
+                .isFalse();
+        assertThat(testResultCache.isTestExecution(mockedMojoExecution("maven-compiler-plugin", "compile")))
+                .isFalse();
+    }
+
+    @Test
+    void fingerprint_shouldChange_ifClassChanges() throws IOException {
+        final var before = testResultCache.fingerprint(session, project, surefire);
+        Files.writeString(target.resolve("classes/A.class"), "B");
+
+        assertThat(testResultCache.fingerprint(session, project, surefire)).isNotEqualTo(before);
+    }
+
+    @Test
+    void fingerprint_shouldChange_ifUserPropertiesChange() throws IOException {
+        final var before = testResultCache.fingerprint(session, project, surefire);
+        final var properties = new Properties();
+        properties.setProperty("skipTests", "true");
+        when(session.getUserProperties()).thenReturn(properties);
+
+        assertThat(testResultCache.fingerprint(session, project, surefire)).isNotEqualTo(before);
+    }
+
+    @Test
+    void fingerprint_shouldChange_ifProjectPropertiesChange() throws IOException {
+        final var before = testResultCache.fingerprint(session, project, surefire);
+        final var properties = new Properties();
+        properties.setProperty("argLine", "-Xmx1g");
+        when(project.getProperties()).thenReturn(properties);
+
+        assertThat(testResultCache.fingerprint(session, project, surefire)).isNotEqualTo(before);
+    }
+
+    @Test
+    void restore_shouldRestoreReports_ifFingerprintMatches() throws IOException {
+        final var reports = target.resolve("surefire-reports");
+        Files.createDirectories(reports);
+        Files.writeString(reports.resolve("TEST-ATest.xml"), "<testsuite/>");
+        final var fingerprint = testResultCache.fingerprint(session, project, surefire);
+        testResultCache.save(session, project, surefire, fingerprint);
+        Files.delete(reports.resolve("TEST-ATest.xml"));
+
+        assertThat(testResultCache.restore(session, project, surefire, fingerprint))
+                .isTrue();
+        assertThat(reports.resolve("TEST-ATest.xml")).hasContent("<testsuite/>");
+    }
+
+    @Test
+    void restore_shouldReturnFalse_ifFingerprintDiffers() throws IOException {
+        final var reports = target.resolve("surefire-reports");
+        Files.createDirectories(reports);
+        Files.writeString(reports.resolve("TEST-ATest.xml"), "<testsuite/>");
+        testResultCache.save(session, project, surefire, "old");
+
+        assertThat(testResultCache.restore(session, project, surefire, "new")).isFalse();
+    }
+
+    @Test
+    void restore_shouldReturnFalse_ifNoReportsWereSaved() throws IOException {
+        testResultCache.save(session, project, surefire, "fingerprint");
+
+        assertThat(testResultCache.restore(session, project, surefire, "fingerprint"))
+                .isFalse();
+    }
+
+    private static MojoExecution mockedMojoExecution(final String artifactId, final String goal) {
+        final var mojoExecution = mock(MojoExecution.class);
+        when(mojoExecution.getGroupId()).thenReturn("org.apache.maven.plugins");
+        when(mojoExecution.getArtifactId()).thenReturn(artifactId);
+        when(mojoExecution.getVersion()).thenReturn("3.5.0");
+        when(mojoExecution.getGoal()).thenReturn(goal);
+        when(mojoExecution.getExecutionId()).thenReturn("default-" + goal);
+        return mojoExecution;
+    }
+}
@@ -76,6 +76,24 @@ class UtilsTest {
     void getCacheFile_shouldReturnLocationOfCacheFile() {
         assertThat(Utils.getCacheFile(session))
                 .asString()
-                .isEqualTo("/a/b/c/group/id/artifact/version/artifact-version-profile1-profile2.files");
+                .isEqualTo("/a/b/c/group/id/artifact/version/artifact-version.files");
+    }
+
+    @Test
+    void getOutputFile_shouldReturnLocationOfOutputFile() {
+        assertThat(Utils.getOutputFile(session, session.getCurrentProject(), "0123456789abcdef"))
+                .asString()
+                .isEqualTo("/a/b/c/group/id/artifact/version/artifact-version-0123456789abcdef.outputs.zip");
+    }
+
+    @Test
+    void isCacheFile_shouldOnlyMatchBuildCheckFiles() {
+        assertThat(Utils.isCacheFile("artifact-version.files")).isTrue();
+        assertThat(Utils.isCacheFile("artifact-version-0123456789abcdef-default-test.tests.zip"))
+                .isTrue();
+        assertThat(Utils.isCacheFile("artifact-version-0123456789abcdef.outputs.zip"))
+                .isTrue();
+        assertThat(Utils.isCacheFile("artifact-version.jar")).isFalse();
+        assertThat(Utils.isCacheFile("artifact-version.pom")).isFalse();
     }
 }